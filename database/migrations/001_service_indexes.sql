@@ -0,0 +1,41 @@
+-- ========================================================
+-- MIGRATION 001 : INDEX DES REQUÊTES SERVICE
+-- ========================================================
+-- For databases created before these indexes were added to schema.sql.
+-- Run once by an account with the ALTER privilege, outside opening hours
+-- on large tables:
+--   mysql -u root -p gestion_publicite < database/migrations/001_service_indexes.sql
+-- Indexes that already exist are left as they are, so running it again
+-- is harmless.
+
+DROP PROCEDURE IF EXISTS add_index_if_missing;
+
+DELIMITER //
+CREATE PROCEDURE add_index_if_missing(IN tbl VARCHAR(64), IN idx VARCHAR(64), IN cols VARCHAR(255))
+BEGIN
+    IF NOT EXISTS (
+        SELECT 1 FROM information_schema.statistics
+        WHERE table_schema = DATABASE() AND table_name = tbl AND index_name = idx
+    ) THEN
+        SET @ddl = CONCAT('CREATE INDEX ', idx, ' ON ', tbl, ' (', cols, ')');
+        PREPARE stmt FROM @ddl;
+        EXECUTE stmt;
+        DEALLOCATE PREPARE stmt;
+    END IF;
+END //
+DELIMITER ;
+
+-- Keyset pagination of the service grid (ORDER BY date_creation DESC, id_service DESC)
+CALL add_index_if_missing('service', 'idx_service_date_id', 'date_creation, id_service');
+
+-- Filtered grid queries (ServiceQuery): equality filter + date range / keyset order
+CALL add_index_if_missing('service', 'idx_service_client_date', 'id_client, date_creation, id_service');
+CALL add_index_if_missing('service', 'idx_service_type_date', 'id_type_service, date_creation, id_service');
+CALL add_index_if_missing('service', 'idx_service_paiement_date', 'etat_paiement, date_creation, id_service');
+CALL add_index_if_missing('service', 'idx_service_statut_date', 'statut_service, date_creation, id_service');
+CALL add_index_if_missing('client', 'idx_client_nom', 'nom');
+
+-- Receivables aging (ServiceManager.loadReceivablesAging): range on the unpaid rows
+CALL add_index_if_missing('service', 'idx_service_reste_client_date', 'reste_a_payer, id_client, date_creation');
+
+DROP PROCEDURE add_index_if_missing;
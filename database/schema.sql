@@ -49,18 +49,20 @@ CREATE TABLE service (
 
     prix_total DECIMAL(12,2) NOT NULL,
     montant_paye DECIMAL(12,2) DEFAULT 0,
-    reste_a_payer DECIMAL(12,2) NOT NULL,
+    -- Computed by MySQL: the application never writes it
+    reste_a_payer DECIMAL(12,2) GENERATED ALWAYS AS (prix_total - montant_paye) STORED,
 
-    statut_paiement ENUM('NON_PAYE','PARTIEL','PAYE') DEFAULT 'NON_PAYE',
+    etat_paiement ENUM('NON_PAYE','PARTIELLEMENT_PAYE','PAYE') DEFAULT 'NON_PAYE',
+    statut_service ENUM('EN_ATTENTE','EN_COURS','TERMINE') DEFAULT 'EN_ATTENTE',
 
     FOREIGN KEY (id_client) REFERENCES client(id_client),
     FOREIGN KEY (id_type_service) REFERENCES type_service(id_type_service)
 );
 
 -- ========================================================
--- PAIEMENT SERVICE (TRANCHES)
+-- PAIEMENT VENTE (TRANCHES D'UN SERVICE)
 -- ========================================================
-CREATE TABLE paiement_service (
+CREATE TABLE paiement_vente (
     id_paiement INT AUTO_INCREMENT PRIMARY KEY,
     id_service INT NOT NULL,
     date_paiement DATETIME DEFAULT CURRENT_TIMESTAMP,
@@ -80,7 +82,8 @@ CREATE TABLE achat (
 
     prix_total DECIMAL(12,2) NOT NULL,
     montant_paye DECIMAL(12,2) DEFAULT 0,
-    reste_a_payer DECIMAL(12,2) NOT NULL,
+    -- Computed by MySQL: the application never writes it
+    reste_a_payer DECIMAL(12,2) GENERATED ALWAYS AS (prix_total - montant_paye) STORED,
 
     statut_paiement ENUM('NON_PAYE','PARTIEL','PAYE') DEFAULT 'NON_PAYE',
 
@@ -110,3 +113,35 @@ CREATE TABLE bon (
     montant DECIMAL(12,2),
     remarque TEXT
 );
+
+-- ========================================================
+-- ROLLUP JOURNALIER (tendances du dashboard)
+-- ========================================================
+-- Maintained by the application with each service / payment write
+-- (DailyRollup), rebuilt from service and paiement_vente on demand
+CREATE TABLE service_daily_rollup (
+    jour DATE NOT NULL,
+    id_type_service INT NOT NULL,
+    montant_facture DECIMAL(14,2) NOT NULL DEFAULT 0,
+    montant_encaisse DECIMAL(14,2) NOT NULL DEFAULT 0,
+    nb_services INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (jour, id_type_service)
+);
+
+-- ========================================================
+-- INDEX
+-- ========================================================
+-- Existing databases: database/migrations/001_service_indexes.sql
+-- Keyset pagination of the service grid (ORDER BY date_creation DESC, id_service DESC)
+CREATE INDEX idx_service_date_id ON service (date_creation, id_service);
+
+-- Filtered grid queries (ServiceQuery): equality filter + date range / keyset order
+CREATE INDEX idx_service_client_date ON service (id_client, date_creation, id_service);
+CREATE INDEX idx_service_type_date ON service (id_type_service, date_creation, id_service);
+CREATE INDEX idx_service_paiement_date ON service (etat_paiement, date_creation, id_service);
+CREATE INDEX idx_service_statut_date ON service (statut_service, date_creation, id_service);
+CREATE INDEX idx_client_nom ON client (nom);
+
+-- Receivables aging (ServiceManager.loadReceivablesAging): range on the
+-- unpaid rows, covering the client grouping and the age computation
+CREATE INDEX idx_service_reste_client_date ON service (reste_a_payer, id_client, date_creation);
@@ -1,24 +1,36 @@
 package com.advertising;
 
+import com.advertising.controller.WindowManager;
+import com.advertising.service.AppRepository;
+import com.advertising.service.DashboardCache;
+import com.advertising.util.DatabaseConnection;
 import javafx.application.Application;
-import javafx.scene.Scene;
 import javafx.stage.Stage;
 
 public class MainApp extends Application {
 
     private static Stage primaryStage;
-    private static final int WINDOW_WIDTH = 1000;
-    private static final int WINDOW_HEIGHT = 700;
 
     @Override
     public void start(Stage stage) {
         primaryStage = stage;
-        primaryStage.setTitle("Advertising Company Management System");
-        primaryStage.setResizable(false);
+        WindowManager.init(stage);
 
         showLoginPage();
 
         primaryStage.show();
+
+        // Calcule les chiffres du dashboard pendant la connexion
+        DashboardCache.getInstance();
+        // Clients, fournisseurs et types partagés par toutes les fenêtres
+        AppRepository.getInstance().ensureLoaded();
+    }
+
+    @Override
+    public void stop() {
+        DashboardCache.shutdown();
+        // Ferme les connexions du pool à la sortie
+        DatabaseConnection.closeConnection();
     }
 
     // Dans MainApp.java, ajoutez :
@@ -26,43 +38,19 @@ public class MainApp extends Application {
         return primaryStage;
     }
 
-    public static void showLoginPage() {
-        // Crée le contrôleur de login
-        com.advertising.controller.LoginController loginController = new com.advertising.controller.LoginController();
-
-        // Crée la scène avec la vue du contrôleur
-        Scene scene = new Scene(loginController.getView(), WINDOW_WIDTH, WINDOW_HEIGHT);
-
-        // ENLEVÉ la référence au CSS qui n'existe pas
-        // scene.getStylesheets().add(MainApp.class.getResource("/css/style.css").toExternalForm());
+    // Les pages sont créées une seule fois puis réutilisées (voir WindowManager)
 
-        primaryStage.setScene(scene);
+    public static void showLoginPage() {
+        WindowManager.closeWindows();
+        WindowManager.showInMainWindow(WindowManager.Page.LOGIN);
     }
 
     public static void showDashboard() {
-        // Crée le contrôleur du dashboard
-        com.advertising.controller.DashboardController dashboardController = new com.advertising.controller.DashboardController();
-
-        // Crée la scène avec la vue du contrôleur
-        Scene scene = new Scene(dashboardController.getView(), WINDOW_WIDTH, WINDOW_HEIGHT);
-
-        // ENLEVÉ la référence au CSS qui n'existe pas
-        // scene.getStylesheets().add(MainApp.class.getResource("/css/style.css").toExternalForm());
-
-        primaryStage.setScene(scene);
+        WindowManager.showInMainWindow(WindowManager.Page.DASHBOARD);
     }
 
     public static void showServicePage() {
-        // Crée le contrôleur des services
-        com.advertising.controller.ServiceController serviceController = new com.advertising.controller.ServiceController();
-
-        // Crée la scène avec la vue du contrôleur (plus grande pour ServiceController)
-        primaryStage.setResizable(true);
-        primaryStage.setMaximized(true);
-        Scene scene = new Scene(serviceController.getView(), 1400, 900);
-
-        primaryStage.setScene(scene);
-        primaryStage.setTitle("📦 Gestion des Services - Advertising Management");
+        WindowManager.showInMainWindow(WindowManager.Page.SERVICES);
     }
 
     public static void main(String[] args) {
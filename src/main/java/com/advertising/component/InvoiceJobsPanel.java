@@ -0,0 +1,103 @@
+package com.advertising.component;
+
+import com.advertising.service.InvoiceJobQueue;
+import com.advertising.service.InvoiceJobQueue.Job;
+import com.advertising.service.InvoiceJobQueue.Status;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.collections.WeakListChangeListener;
+import javafx.geometry.Insets;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.Tooltip;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+
+import java.io.File;
+import java.util.function.Consumer;
+
+/**
+ * Side panel listing the invoice jobs (waiting, running, finished)
+ *
+ * Hidden while there is no job. A finished invoice is opened by clicking
+ * it, through the handler given by the owner.
+ */
+public class InvoiceJobsPanel extends VBox {
+
+    private final ObservableList<Job> jobs = InvoiceJobQueue.getInstance().getJobs();
+    private final ListChangeListener<Job> visibilityListener = c -> updateVisibility();
+    private Consumer<File> onOpen;
+
+    public InvoiceJobsPanel() {
+        setSpacing(8);
+        setPadding(new Insets(10));
+        setPrefWidth(240);
+        setStyle("-fx-background-color: white; " +
+                 "-fx-background-radius: 8; " +
+                 "-fx-border-color: #ddd; " +
+                 "-fx-border-width: 1; " +
+                 "-fx-border-radius: 8;");
+
+        Label title = new Label("🧾 Factures");
+        title.setStyle("-fx-font-weight: bold; " +
+                       "-fx-font-size: 13px; " +
+                       "-fx-text-fill: #2c3e50;");
+
+        ListView<Job> jobList = new ListView<>(jobs);
+        jobList.setCellFactory(list -> new JobCell());
+        jobList.setOnMouseClicked(e -> {
+            Job job = jobList.getSelectionModel().getSelectedItem();
+            if (job != null && job.getStatus() == Status.DONE && onOpen != null) {
+                onOpen.accept(job.getFile());
+            }
+        });
+        VBox.setVgrow(jobList, Priority.ALWAYS);
+
+        getChildren().addAll(title, jobList);
+
+        jobs.addListener(new WeakListChangeListener<>(visibilityListener));
+        updateVisibility();
+    }
+
+    /**
+     * Called with the file of a finished invoice the user clicked
+     */
+    public void setOnOpen(Consumer<File> onOpen) {
+        this.onOpen = onOpen;
+    }
+
+    private void updateVisibility() {
+        setVisible(!jobs.isEmpty());
+        setManaged(!jobs.isEmpty());
+    }
+
+    private static class JobCell extends ListCell<Job> {
+        @Override
+        protected void updateItem(Job job, boolean empty) {
+            super.updateItem(job, empty);
+            if (empty || job == null) {
+                setText(null);
+                setTooltip(null);
+                setStyle("");
+                return;
+            }
+            setText("#" + job.getService().getId() + " " + job.getService().getClient()
+                    + "\n" + job.getStatus());
+            switch (job.getStatus()) {
+                case DONE -> {
+                    setTooltip(new Tooltip("Cliquer pour ouvrir " + job.getFile().getName()));
+                    setStyle("-fx-text-fill: #27ae60; -fx-cursor: hand;");
+                }
+                case FAILED -> {
+                    setTooltip(new Tooltip(job.getError()));
+                    setStyle("-fx-text-fill: #e74c3c;");
+                }
+                default -> {
+                    setTooltip(null);
+                    setStyle("-fx-text-fill: #7f8c8d;");
+                }
+            }
+        }
+    }
+}
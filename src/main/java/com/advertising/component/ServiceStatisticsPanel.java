@@ -1,13 +1,23 @@
 package com.advertising.component;
 
 import com.advertising.service.ServiceManager;
+import javafx.beans.property.SimpleStringProperty;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.ProgressBar;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.TitledPane;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+
 /**
  * Dedicated component for displaying service statistics
  * with clean, direct access to labels (no nested navigation)
@@ -17,6 +27,8 @@ import javafx.scene.layout.VBox;
  * - Amount paid display
  * - Remaining amount display
  * - Visual progress bar showing payment completion
+ * - Expandable breakdown by client, type, payment status or month
+ *   (rows supplied by the owner through the breakdown request handler)
  */
 public class ServiceStatisticsPanel extends VBox {
     
@@ -26,6 +38,12 @@ public class ServiceStatisticsPanel extends VBox {
     private final Label remainingLabel;
     private final ProgressBar paymentProgressBar;
     private final Label progressPercentageLabel;
+
+    // Breakdown section
+    private final TitledPane breakdownPane;
+    private final ComboBox<ServiceManager.Grouping> groupingCombo;
+    private final TableView<ServiceManager.GroupStatistics> breakdownTable;
+    private Consumer<ServiceManager.Grouping> onBreakdownRequested;
     
     public ServiceStatisticsPanel() {
         setupLayout();
@@ -59,14 +77,33 @@ public class ServiceStatisticsPanel extends VBox {
         HBox statsRow = new HBox(15, totalBox, paidBox, remainingBox);
         statsRow.setAlignment(Pos.CENTER);
 
+        // Breakdown section (collapsed by default)
+        groupingCombo = new ComboBox<>();
+        groupingCombo.getItems().addAll(ServiceManager.Grouping.values());
+        groupingCombo.setValue(ServiceManager.Grouping.CLIENT);
+        groupingCombo.setOnAction(e -> requestBreakdown());
+
+        breakdownTable = createBreakdownTable();
+        breakdownPane = createBreakdownPane();
+
         // Add all components
-        getChildren().addAll(statsRow, progressBox);
+        getChildren().addAll(statsRow, progressBox, breakdownPane);
 
         // CRITICAL FIX: Set height constraints AFTER children are added
         // This ensures the panel maintains its size and stays visible
-        setMinHeight(140);
-        setPrefHeight(140);
-        setMaxHeight(160);
+        applyHeight(false);
+        breakdownPane.expandedProperty().addListener((obs, was, expanded) -> {
+            applyHeight(expanded);
+            if (expanded) {
+                requestBreakdown();
+            }
+        });
+    }
+
+    private void applyHeight(boolean expanded) {
+        setMinHeight(expanded ? 380 : 175);
+        setPrefHeight(expanded ? 380 : 175);
+        setMaxHeight(expanded ? 420 : 195);
     }
     
     private void setupLayout() {
@@ -167,6 +204,83 @@ public class ServiceStatisticsPanel extends VBox {
         paymentProgressBar.setStyle("-fx-accent: #e74c3c;");
     }
     
+    // ============ BREAKDOWN ============
+
+    private TitledPane createBreakdownPane() {
+        HBox groupingRow = new HBox(8, new Label("Répartir par:"), groupingCombo);
+        groupingRow.setAlignment(Pos.CENTER_LEFT);
+
+        VBox content = new VBox(6, groupingRow, breakdownTable);
+        content.setPadding(new Insets(6));
+        VBox.setVgrow(breakdownTable, Priority.ALWAYS);
+
+        TitledPane pane = new TitledPane("📊 Répartition des montants", content);
+        pane.setExpanded(false);
+        pane.setAnimated(false);
+        return pane;
+    }
+
+    private TableView<ServiceManager.GroupStatistics> createBreakdownTable() {
+        TableView<ServiceManager.GroupStatistics> table = new TableView<>();
+        table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_FLEX_LAST_COLUMN);
+        table.setPlaceholder(new Label("Aucune donnée"));
+        table.setPrefHeight(200);
+
+        TableColumn<ServiceManager.GroupStatistics, String> keyCol = new TableColumn<>("Groupe");
+        keyCol.setCellValueFactory(data -> new SimpleStringProperty(
+                data.getValue().getKey() != null ? data.getValue().getKey() : "—"));
+
+        TableColumn<ServiceManager.GroupStatistics, String> countCol = new TableColumn<>("Services");
+        countCol.setCellValueFactory(data -> new SimpleStringProperty(
+                String.valueOf(data.getValue().getStatistics().getServiceCount())));
+        countCol.setMaxWidth(90);
+
+        table.getColumns().addAll(List.of(keyCol, countCol,
+                amountColumn("💰 Total", ServiceManager.ServiceStatistics::getTotalAmount),
+                amountColumn("💵 Payé", ServiceManager.ServiceStatistics::getTotalPaid),
+                amountColumn("⚖️ Reste", ServiceManager.ServiceStatistics::getTotalRemaining)));
+        return table;
+    }
+
+    private TableColumn<ServiceManager.GroupStatistics, String> amountColumn(
+            String title, ToDoubleFunction<ServiceManager.ServiceStatistics> amount) {
+        TableColumn<ServiceManager.GroupStatistics, String> col = new TableColumn<>(title);
+        col.setCellValueFactory(data -> new SimpleStringProperty(
+                formatCurrency(amount.applyAsDouble(data.getValue().getStatistics()))));
+        col.setStyle("-fx-alignment: CENTER-RIGHT;");
+        return col;
+    }
+
+    /**
+     * Called with the selected grouping whenever the breakdown needs rows:
+     * expanded, grouping changed, or {@link #refreshBreakdown()}.
+     * The handler answers with {@link #showBreakdown}.
+     */
+    public void setOnBreakdownRequested(Consumer<ServiceManager.Grouping> handler) {
+        this.onBreakdownRequested = handler;
+    }
+
+    /**
+     * Ask for fresh breakdown rows if the section is open (e.g. filters changed)
+     */
+    public void refreshBreakdown() {
+        if (breakdownPane.isExpanded()) {
+            requestBreakdown();
+        }
+    }
+
+    public void showBreakdown(ServiceManager.Grouping grouping, List<ServiceManager.GroupStatistics> groups) {
+        if (grouping == groupingCombo.getValue()) {
+            breakdownTable.getItems().setAll(groups);
+        }
+    }
+
+    private void requestBreakdown() {
+        if (onBreakdownRequested != null && groupingCombo.getValue() != null) {
+            onBreakdownRequested.accept(groupingCombo.getValue());
+        }
+    }
+
     /**
      * Update progress bar color based on completion percentage
      * - Red (< 30%): Minimal payment
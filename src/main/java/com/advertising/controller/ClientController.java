@@ -1,8 +1,11 @@
 package com.advertising.controller;
 
+import com.advertising.service.AppRepository;
 import com.advertising.util.DatabaseConnection;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import javafx.collections.ListChangeListener;
+import javafx.collections.WeakListChangeListener;
+import javafx.collections.transformation.FilteredList;
+import javafx.collections.transformation.SortedList;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.*;
@@ -15,11 +18,17 @@ import javafx.stage.Stage;
 import java.sql.*;
 import java.util.Optional;
 
-public class ClientController {
+public class ClientController implements ManagedView {
 
     private BorderPane view;
     private TableView<Client> clientTable;
-    private ObservableList<Client> clientList;
+    // Shared with every window through the repository; filtered here for the search
+    private final AppRepository repository = AppRepository.getInstance();
+    private final FilteredList<Client> filteredClients = new FilteredList<>(repository.getClients());
+    private final ListChangeListener<Client> statsListener = c -> updateStats();
+    private Label totalValueLabel;
+    private Label withServicesValueLabel;
+    private Label withoutServicesValueLabel;
     private TextField searchField;
     private ComboBox<String> filterComboBox;
     
@@ -33,7 +42,8 @@ public class ClientController {
 
     public ClientController() {
         createView();
-        loadClients();
+        repository.getClients().addListener(new WeakListChangeListener<>(statsListener));
+        updateStats();
     }
 
     public BorderPane getView() {
@@ -88,7 +98,7 @@ public class ClientController {
         
         // Écouteur pour recherche en temps réel
         searchField.textProperty().addListener((observable, oldValue, newValue) -> {
-            searchClients();
+            applyFilters();
         });
         
         Button clearSearchButton = new Button("🗑️ Effacer");
@@ -96,7 +106,6 @@ public class ClientController {
         clearSearchButton.setOnAction(e -> {
             searchField.clear();
             filterComboBox.setValue(ALL);
-            loadClients();
         });
         
         // Filtres avancés
@@ -107,7 +116,7 @@ public class ClientController {
         filterComboBox.getItems().addAll(ALL, WITH_SERVICES, WITHOUT_SERVICES);
         filterComboBox.setValue(ALL);
         filterComboBox.setStyle("-fx-padding: 8; -fx-background-radius: 5;");
-        filterComboBox.setOnAction(e -> filterClients());
+        filterComboBox.setOnAction(e -> applyFilters());
         
         searchBox.getChildren().addAll(searchField, clearSearchButton, filterLabel, filterComboBox);
         
@@ -121,41 +130,31 @@ public class ClientController {
     private HBox createStatsBox() {
         HBox statsBox = new HBox(15);
         statsBox.setAlignment(Pos.CENTER_LEFT);
-        
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            
-            // Total clients
-            String totalQuery = "SELECT COUNT(*) as total FROM client";
-            PreparedStatement totalStmt = conn.prepareStatement(totalQuery);
-            ResultSet totalRs = totalStmt.executeQuery();
-            int totalClients = totalRs.next() ? totalRs.getInt("total") : 0;
-            
-            // Clients avec services
-            String withServicesQuery = "SELECT COUNT(DISTINCT id_client) as count FROM service";
-            PreparedStatement servicesStmt = conn.prepareStatement(withServicesQuery);
-            ResultSet servicesRs = servicesStmt.executeQuery();
-            int clientsWithServices = servicesRs.next() ? servicesRs.getInt("count") : 0;
-            
-            totalRs.close();
-            totalStmt.close();
-            servicesRs.close();
-            servicesStmt.close();
-            
-            Label totalLabel = createStatLabel("👥 Total Clients", String.valueOf(totalClients), "#3498db");
-            Label activeLabel = createStatLabel("📊 Avec Services", String.valueOf(clientsWithServices), "#2ecc71");
-            Label inactiveLabel = createStatLabel("⏳ Sans Services", String.valueOf(totalClients - clientsWithServices), "#e74c3c");
-            
-            statsBox.getChildren().addAll(totalLabel, activeLabel, inactiveLabel);
-            
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        
+
+        totalValueLabel = new Label("0");
+        withServicesValueLabel = new Label("0");
+        withoutServicesValueLabel = new Label("0");
+
+        Label totalLabel = createStatLabel("👥 Total Clients", totalValueLabel, "#3498db");
+        Label activeLabel = createStatLabel("📊 Avec Services", withServicesValueLabel, "#2ecc71");
+        Label inactiveLabel = createStatLabel("⏳ Sans Services", withoutServicesValueLabel, "#e74c3c");
+
+        statsBox.getChildren().addAll(totalLabel, activeLabel, inactiveLabel);
         return statsBox;
     }
 
-    private Label createStatLabel(String title, String value, String color) {
+    /**
+     * Counts from the shared client list, recomputed when it changes
+     */
+    private void updateStats() {
+        int total = repository.getClients().size();
+        int withServices = (int) repository.getClients().stream().filter(c -> c.getNombreServices() > 0).count();
+        totalValueLabel.setText(String.valueOf(total));
+        withServicesValueLabel.setText(String.valueOf(withServices));
+        withoutServicesValueLabel.setText(String.valueOf(total - withServices));
+    }
+
+    private Label createStatLabel(String title, Label valueLabel, String color) {
         VBox statBox = new VBox(5);
         statBox.setAlignment(Pos.CENTER_LEFT);
         statBox.setPadding(new Insets(10, 15, 10, 15));
@@ -165,7 +164,6 @@ public class ClientController {
         titleLabel.setFont(Font.font(11));
         titleLabel.setStyle("-fx-text-fill: white;");
         
-        Label valueLabel = new Label(value);
         valueLabel.setFont(Font.font("System Bold", 18));
         valueLabel.setStyle("-fx-text-fill: white;");
         
@@ -249,13 +247,17 @@ public class ClientController {
         });
         
         clientTable.getColumns().addAll(idCol, nomCol, phoneCol, emailCol, adresseCol, servicesCol, actionsCol);
+
+        SortedList<Client> sortedClients = new SortedList<>(filteredClients);
+        sortedClients.comparatorProperty().bind(clientTable.comparatorProperty());
+        clientTable.setItems(sortedClients);
         
         // Bouton d'actualisation
         HBox tableButtons = new HBox(10);
         
         Button refreshButton = new Button("🔄 Actualiser");
         refreshButton.setStyle("-fx-background-color: #3498db; -fx-text-fill: white; -fx-background-radius: 5; -fx-padding: 10 20;");
-        refreshButton.setOnAction(e -> loadClients());
+        refreshButton.setOnAction(e -> repository.refresh());
         
         Button exportButton = new Button("📊 Exporter CSV");
         exportButton.setStyle("-fx-background-color: #9b59b6; -fx-text-fill: white; -fx-background-radius: 5; -fx-padding: 10 20;");
@@ -269,84 +271,27 @@ public class ClientController {
         return tableBox;
     }
 
-    private void loadClients() {
-        clientList = FXCollections.observableArrayList();
-        
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            String query = "SELECT c.*, COUNT(s.id_service) as nombre_services " +
-                          "FROM client c " +
-                          "LEFT JOIN service s ON c.id_client = s.id_client " +
-                          "GROUP BY c.id_client " +
-                          "ORDER BY c.nom";
-            PreparedStatement stmt = conn.prepareStatement(query);
-            ResultSet rs = stmt.executeQuery();
-            
-            while (rs.next()) {
-                Client client = new Client(
-                    rs.getInt("id_client"),
-                    rs.getString("nom"),
-                    rs.getString("telephone"),
-                    rs.getString("email"),
-                    rs.getString("adresse"),
-                    rs.getInt("nombre_services")
-                );
-                clientList.add(client);
-            }
-            
-            clientTable.setItems(clientList);
-            
-            rs.close();
-            stmt.close();
-            
-        } catch (SQLException e) {
-            e.printStackTrace();
-            showAlert("Erreur", "Erreur lors du chargement des clients: " + e.getMessage());
-        }
-    }
-
-    private void searchClients() {
+    /**
+     * Apply the search text and the services filter to the shared list
+     */
+    private void applyFilters() {
         String searchText = searchField.getText().trim().toLowerCase();
-        
-        if (searchText.isEmpty()) {
-            filterClients();
-            return;
-        }
-        
-        ObservableList<Client> filteredList = FXCollections.observableArrayList();
-        
-        for (Client client : clientList) {
-            // Recherche intelligente : recherche dans tous les champs
-            if (client.getNom().toLowerCase().contains(searchText) ||
-                (client.getTelephone() != null && client.getTelephone().toLowerCase().contains(searchText)) ||
-                (client.getEmail() != null && client.getEmail().toLowerCase().contains(searchText)) ||
-                (client.getAdresse() != null && client.getAdresse().toLowerCase().contains(searchText))) {
-                filteredList.add(client);
-            }
-        }
-        
-        clientTable.setItems(filteredList);
-    }
-
-    private void filterClients() {
         String filter = filterComboBox.getValue();
-        
-        if (filter.equals(ALL)) {
-            searchClients(); // Applique la recherche si elle existe
-            return;
-        }
-        
-        ObservableList<Client> filteredList = FXCollections.observableArrayList();
-        
-        for (Client client : clientList) {
-            if (filter.equals(WITH_SERVICES) && client.getNombreServices() > 0) {
-                filteredList.add(client);
-            } else if (filter.equals(WITHOUT_SERVICES) && client.getNombreServices() == 0) {
-                filteredList.add(client);
+
+        filteredClients.setPredicate(client -> {
+            if (WITH_SERVICES.equals(filter) && client.getNombreServices() == 0) {
+                return false;
             }
-        }
-        
-        clientTable.setItems(filteredList);
+            if (WITHOUT_SERVICES.equals(filter) && client.getNombreServices() > 0) {
+                return false;
+            }
+            // Recherche intelligente : recherche dans tous les champs
+            return searchText.isEmpty()
+                || client.getNom().toLowerCase().contains(searchText)
+                || (client.getTelephone() != null && client.getTelephone().toLowerCase().contains(searchText))
+                || (client.getEmail() != null && client.getEmail().toLowerCase().contains(searchText))
+                || (client.getAdresse() != null && client.getAdresse().toLowerCase().contains(searchText));
+        });
     }
 
     // ===== DIALOGUES =====
@@ -510,8 +455,7 @@ public class ClientController {
         }
         
         // Liste des services du client
-        try {
-            Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getConnection()) {
             String query = "SELECT s.*, ts.nom_type FROM service s " +
                           "JOIN type_service ts ON s.id_type_service = ts.id_type_service " +
                           "WHERE s.id_client = ? ORDER BY s.date_creation DESC";
@@ -586,29 +530,10 @@ public class ClientController {
 
     private void saveClient(Client client) {
         try {
-            Connection conn = DatabaseConnection.getConnection();
-            String query = "INSERT INTO client (nom, telephone, email, adresse) VALUES (?, ?, ?, ?)";
-            PreparedStatement stmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS);
-            
-            stmt.setString(1, client.getNom());
-            stmt.setString(2, client.getTelephone());
-            stmt.setString(3, client.getEmail());
-            stmt.setString(4, client.getAdresse());
-            
-            int rowsAffected = stmt.executeUpdate();
-            
-            if (rowsAffected > 0) {
-                ResultSet rs = stmt.getGeneratedKeys();
-                if (rs.next()) {
-                    showAlert("Succès", "Client ajouté avec succès ! ID: " + rs.getInt(1));
-                }
-                rs.close();
-                
-                loadClients();
-            }
-            
-            stmt.close();
-            
+            Client saved = repository.addClient(client.getNom(), client.getTelephone(),
+                client.getEmail(), client.getAdresse());
+            showAlert("Succès", "Client ajouté avec succès ! ID: " + saved.getId());
+
         } catch (SQLException e) {
             e.printStackTrace();
             showAlert("Erreur", "Erreur lors de l'ajout: " + e.getMessage());
@@ -617,24 +542,10 @@ public class ClientController {
 
     private void updateClient(Client client) {
         try {
-            Connection conn = DatabaseConnection.getConnection();
-            String query = "UPDATE client SET nom = ?, telephone = ?, email = ?, adresse = ? WHERE id_client = ?";
-            PreparedStatement stmt = conn.prepareStatement(query);
-            
-            stmt.setString(1, client.getNom());
-            stmt.setString(2, client.getTelephone());
-            stmt.setString(3, client.getEmail());
-            stmt.setString(4, client.getAdresse());
-            stmt.setInt(5, client.getId());
-            
-            int rowsAffected = stmt.executeUpdate();
-            stmt.close();
-            
-            if (rowsAffected > 0) {
+            if (repository.updateClient(client)) {
                 showAlert("Succès", "Client modifié avec succès !");
-                loadClients();
             }
-            
+
         } catch (SQLException e) {
             e.printStackTrace();
             showAlert("Erreur", "Erreur lors de la modification: " + e.getMessage());
@@ -653,17 +564,8 @@ public class ClientController {
         Optional<ButtonType> result = alert.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
             try {
-                Connection conn = DatabaseConnection.getConnection();
-                String query = "DELETE FROM client WHERE id_client = ?";
-                PreparedStatement stmt = conn.prepareStatement(query);
-                stmt.setInt(1, client.getId());
-                
-                int rowsAffected = stmt.executeUpdate();
-                stmt.close();
-                
-                if (rowsAffected > 0) {
+                if (repository.deleteClient(client.getId())) {
                     showAlert("Succès", "Client supprimé avec succès !");
-                    loadClients();
                 }
                 
             } catch (SQLException e) {
@@ -674,36 +576,22 @@ public class ClientController {
     }
 
     private void exportClients() {
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            String query = "SELECT * FROM client ORDER BY nom";
-            PreparedStatement stmt = conn.prepareStatement(query);
-            ResultSet rs = stmt.executeQuery();
-            
-            StringBuilder csv = new StringBuilder();
-            csv.append("ID,Nom,Téléphone,Email,Adresse\n");
-            
-            while (rs.next()) {
-                csv.append(rs.getInt("id_client")).append(",");
-                csv.append("\"").append(rs.getString("nom")).append("\",");
-                csv.append("\"").append(rs.getString("telephone") != null ? rs.getString("telephone") : "").append("\",");
-                csv.append("\"").append(rs.getString("email") != null ? rs.getString("email") : "").append("\",");
-                csv.append("\"").append(rs.getString("adresse") != null ? rs.getString("adresse").replace("\"", "\"\"") : "").append("\"\n");
-            }
-            
-            System.out.println("=== Export CSV des Clients ===");
-            System.out.println(csv.toString());
-            
-            showAlert("Export Réussi", "Les données ont été exportées dans la console.\n" +
-                                     "Total clients: " + clientList.size());
-            
-            rs.close();
-            stmt.close();
-            
-        } catch (SQLException e) {
-            e.printStackTrace();
-            showAlert("Erreur", "Erreur lors de l'export: " + e.getMessage());
+        StringBuilder csv = new StringBuilder();
+        csv.append("ID,Nom,Téléphone,Email,Adresse\n");
+
+        for (Client client : repository.getClients()) {
+            csv.append(client.getId()).append(",");
+            csv.append("\"").append(client.getNom()).append("\",");
+            csv.append("\"").append(client.getTelephone() != null ? client.getTelephone() : "").append("\",");
+            csv.append("\"").append(client.getEmail() != null ? client.getEmail() : "").append("\",");
+            csv.append("\"").append(client.getAdresse() != null ? client.getAdresse().replace("\"", "\"\"") : "").append("\"\n");
         }
+
+        System.out.println("=== Export CSV des Clients ===");
+        System.out.println(csv.toString());
+
+        showAlert("Export Réussi", "Les données ont été exportées dans la console.\n" +
+                                 "Total clients: " + repository.getClients().size());
     }
 
     private void showAlert(String title, String content) {
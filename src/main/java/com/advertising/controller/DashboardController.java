@@ -1,25 +1,42 @@
 package com.advertising.controller;
 
 import com.advertising.MainApp;
+import com.advertising.service.DailyRollup;
+import com.advertising.service.DashboardCache;
+import com.advertising.service.ServiceManager;
+import javafx.concurrent.Task;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
-import javafx.scene.Scene;
+import javafx.scene.chart.CategoryAxis;
+import javafx.scene.chart.LineChart;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.chart.XYChart;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.scene.text.Font;
 import javafx.scene.text.Text;
-import javafx.stage.Modality;
-import javafx.stage.Stage;
 
-public class DashboardController {
+import java.util.List;
+
+public class DashboardController implements ManagedView {
 
     private BorderPane view;
     private Label totalServicesLabel;
     private Label totalSalesLabel;
     private Label activeClientsLabel;
+    private Label outstandingLabel;
     private ProgressBar servicesProgress;
-    private ProgressBar satisfactionProgress;
-    private ProgressBar revenueProgress;
+    private ProgressBar collectedProgress;
+    private ProgressBar paidServicesProgress;
+    private Label servicesPercentLabel;
+    private Label collectedPercentLabel;
+    private Label paidServicesPercentLabel;
+
+    private LineChart<String, Number> trendChart;
+    private Button rebuildTrendButton;
+
+    // Figures come from the shared cache, refreshed in the background
+    private final Runnable cacheListener = this::showCachedData;
 
     public DashboardController() {
         createView();
@@ -30,6 +47,11 @@ public class DashboardController {
         return view;
     }
 
+    @Override
+    public void onShow() {
+        showCachedData();
+    }
+
     private void createView() {
         BorderPane root = new BorderPane();
         root.getStyleClass().add("dashboard-root");
@@ -44,7 +66,9 @@ public class DashboardController {
 
         // Main Content Area
         VBox contentArea = createContentArea();
-        root.setCenter(contentArea);
+        ScrollPane contentScroll = new ScrollPane(contentArea);
+        contentScroll.setFitToWidth(true);
+        root.setCenter(contentScroll);
 
         this.view = root;
     }
@@ -134,7 +158,10 @@ public class DashboardController {
         // Performance Section
         VBox performanceSection = createPerformanceSection();
 
-        contentArea.getChildren().addAll(pageTitle, statsBox, performanceSection);
+        // Revenue trend
+        VBox trendSection = createTrendSection();
+
+        contentArea.getChildren().addAll(pageTitle, statsBox, performanceSection, trendSection);
         return contentArea;
     }
 
@@ -143,18 +170,22 @@ public class DashboardController {
         statsBox.setAlignment(Pos.CENTER);
 
         // Total Services Card
-        VBox servicesCard = createStatCard("📦", "Total Services", "5");
+        VBox servicesCard = createStatCard("📦", "Total Services", "…");
         totalServicesLabel = (Label) servicesCard.getChildren().get(1);
 
         // Total Sales Card
-        VBox salesCard = createStatCard("💰", "Total Sales", "$15,000");
+        VBox salesCard = createStatCard("💰", "Total Sales", "…");
         totalSalesLabel = (Label) salesCard.getChildren().get(1);
 
+        // Outstanding Card
+        VBox outstandingCard = createStatCard("⚖️", "Outstanding", "…");
+        outstandingLabel = (Label) outstandingCard.getChildren().get(1);
+
         // Active Clients Card
-        VBox clientsCard = createStatCard("👥", "Active Clients", "3");
+        VBox clientsCard = createStatCard("👥", "Active Clients", "…");
         activeClientsLabel = (Label) clientsCard.getChildren().get(1);
 
-        statsBox.getChildren().addAll(servicesCard, salesCard, clientsCard);
+        statsBox.getChildren().addAll(servicesCard, salesCard, outstandingCard, clientsCard);
         return statsBox;
     }
 
@@ -188,21 +219,94 @@ public class DashboardController {
         sectionTitle.setFont(Font.font("System Bold", 18));
 
         // Services Progress
-        VBox servicesProgressBox = createProgressBox("Services Completed", "80%");
+        VBox servicesProgressBox = createProgressBox("Services Completed", "…");
         servicesProgress = (ProgressBar) servicesProgressBox.getChildren().get(1);
+        servicesPercentLabel = percentageLabel(servicesProgressBox);
 
-        // Client Satisfaction Progress
-        VBox satisfactionProgressBox = createProgressBox("Client Satisfaction", "95%");
-        satisfactionProgress = (ProgressBar) satisfactionProgressBox.getChildren().get(1);
+        // Collected vs billed
+        VBox collectedProgressBox = createProgressBox("Revenue Collected", "…");
+        collectedProgress = (ProgressBar) collectedProgressBox.getChildren().get(1);
+        collectedPercentLabel = percentageLabel(collectedProgressBox);
 
-        // Revenue Goal Progress
-        VBox revenueProgressBox = createProgressBox("Revenue Goal", "65%");
-        revenueProgress = (ProgressBar) revenueProgressBox.getChildren().get(1);
+        // Fully paid services
+        VBox paidServicesProgressBox = createProgressBox("Services Fully Paid", "…");
+        paidServicesProgress = (ProgressBar) paidServicesProgressBox.getChildren().get(1);
+        paidServicesPercentLabel = percentageLabel(paidServicesProgressBox);
 
-        performanceSection.getChildren().addAll(sectionTitle, servicesProgressBox, satisfactionProgressBox, revenueProgressBox);
+        performanceSection.getChildren().addAll(sectionTitle, servicesProgressBox, collectedProgressBox, paidServicesProgressBox);
         return performanceSection;
     }
 
+    private VBox createTrendSection() {
+        VBox trendSection = new VBox(15);
+        trendSection.setPadding(new Insets(20, 25, 20, 25));
+        trendSection.setStyle("-fx-background-color: white; -fx-background-radius: 10; -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.1), 10, 0, 0, 2);");
+
+        Label sectionTitle = new Label("Revenue Trend (" + DashboardCache.TREND_MONTHS + " months)");
+        sectionTitle.setFont(Font.font("System Bold", 18));
+
+        Region spacer = new Region();
+        HBox.setHgrow(spacer, Priority.ALWAYS);
+
+        rebuildTrendButton = new Button("↻ Rebuild");
+        rebuildTrendButton.setStyle("-fx-background-color: #95a5a6; -fx-text-fill: white; -fx-background-radius: 5;");
+        rebuildTrendButton.setTooltip(new Tooltip("Recompute the daily rollup from all services and payments"));
+        rebuildTrendButton.setOnAction(e -> rebuildTrend());
+
+        HBox header = new HBox(10, sectionTitle, spacer, rebuildTrendButton);
+        header.setAlignment(Pos.CENTER_LEFT);
+
+        CategoryAxis monthAxis = new CategoryAxis();
+        NumberAxis amountAxis = new NumberAxis();
+        amountAxis.setLabel("DZD");
+
+        trendChart = new LineChart<>(monthAxis, amountAxis);
+        trendChart.setAnimated(false);
+        trendChart.setCreateSymbols(true);
+        trendChart.setPrefHeight(300);
+
+        trendSection.getChildren().addAll(header, trendChart);
+        return trendSection;
+    }
+
+    private void showTrend(List<DailyRollup.MonthlyTotals> months) {
+        XYChart.Series<String, Number> billed = new XYChart.Series<>();
+        billed.setName("Billed");
+        XYChart.Series<String, Number> collected = new XYChart.Series<>();
+        collected.setName("Collected");
+
+        for (DailyRollup.MonthlyTotals month : months) {
+            billed.getData().add(new XYChart.Data<>(month.getMonth(), month.getBilled()));
+            collected.getData().add(new XYChart.Data<>(month.getMonth(), month.getCollected()));
+        }
+        trendChart.getData().setAll(List.of(billed, collected));
+    }
+
+    private void rebuildTrend() {
+        rebuildTrendButton.setDisable(true);
+
+        Task<Void> task = new Task<>() {
+            @Override
+            protected Void call() throws Exception {
+                DailyRollup.rebuild();
+                return null;
+            }
+        };
+        task.setOnSucceeded(e -> {
+            rebuildTrendButton.setDisable(false);
+            DashboardCache.getInstance().invalidate();
+        });
+        task.setOnFailed(e -> {
+            rebuildTrendButton.setDisable(false);
+            task.getException().printStackTrace();
+            showAlert("Rebuild failed", task.getException().getMessage());
+        });
+
+        Thread thread = new Thread(task, "rollup-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
     private VBox createProgressBox(String label, String percentage) {
         VBox progressBox = new VBox(8);
 
@@ -220,7 +324,7 @@ public class DashboardController {
 
         labelBox.getChildren().addAll(progressLabel, spacer, progressPercentage);
 
-        ProgressBar progressBar = new ProgressBar();
+        ProgressBar progressBar = new ProgressBar(0);
         progressBar.setMaxWidth(Double.MAX_VALUE);
         progressBar.setStyle("-fx-accent: #3498db; -fx-pref-height: 10;");
 
@@ -228,21 +332,48 @@ public class DashboardController {
         return progressBox;
     }
 
+    private static Label percentageLabel(VBox progressBox) {
+        HBox labelBox = (HBox) progressBox.getChildren().get(0);
+        return (Label) labelBox.getChildren().get(2);
+    }
+
     private void loadDashboardData() {
-        // Données statiques (comme avant)
-        int totalServices = 5;
-        double totalSales = 15000.0;
-        int activeClients = 3;
-
-        if (totalServicesLabel != null) {
-            totalServicesLabel.setText(String.valueOf(totalServices));
-            totalSalesLabel.setText(String.format("$%,.0f", totalSales));
-            activeClientsLabel.setText(String.valueOf(activeClients));
-
-            servicesProgress.setProgress(0.8);
-            satisfactionProgress.setProgress(0.95);
-            revenueProgress.setProgress(0.65);
+        // Last cached value right away, then every refresh while the dashboard is shown
+        DashboardCache cache = DashboardCache.getInstance();
+        showCachedData();
+
+        // Subscribed only while the view is attached to a scene
+        view.sceneProperty().addListener((obs, oldScene, newScene) -> {
+            cache.removeListener(cacheListener);
+            if (newScene != null) {
+                cache.addListener(cacheListener);
+            }
+        });
+    }
+
+    private void showCachedData() {
+        DashboardCache cache = DashboardCache.getInstance();
+        ServiceManager.DashboardKpis kpis = cache.getKpis();
+        if (kpis != null) {
+            showKpis(kpis);
         }
+        showTrend(cache.getMonthlyTrend());
+    }
+
+    private void showKpis(ServiceManager.DashboardKpis kpis) {
+        totalServicesLabel.setText(String.valueOf(kpis.getServiceCount()));
+        totalSalesLabel.setText(String.format("%,.0f DZD", kpis.getTotalBilled()));
+        outstandingLabel.setText(String.format("%,.0f DZD", kpis.getTotalOutstanding()));
+        activeClientsLabel.setText(String.valueOf(kpis.getActiveClients()));
+
+        showProgress(servicesProgress, servicesPercentLabel, kpis.getCompletedRatio());
+        showProgress(collectedProgress, collectedPercentLabel, kpis.getCollectedRatio());
+        showProgress(paidServicesProgress, paidServicesPercentLabel, kpis.getFullyPaidRatio());
+    }
+
+    private static void showProgress(ProgressBar bar, Label percentage, double ratio) {
+        bar.setProgress(ratio);
+        percentage.setText(String.format("%.0f%%", ratio * 100));
     }
 
     // Handlers pour les boutons
@@ -250,61 +381,19 @@ public class DashboardController {
         MainApp.showLoginPage();
     }
 
+    // Chaque module garde sa fenêtre : un second clic la ramène au premier plan
     private void handleClientsClick() {
-        Stage currentStage = (Stage) view.getScene().getWindow();
-        
-        ClientController clientController = new ClientController();
-        Scene clientScene = new Scene(clientController.getView(), 1200, 800);
-        
-        Stage clientStage = new Stage();
-        clientStage.setTitle("👥 Gestion des Clients");
-        clientStage.setScene(clientScene);
-        configurerFenetre(clientStage);
-        clientStage.show();  
+        WindowManager.openWindow(WindowManager.Page.CLIENTS);
     }
 
     private void handleServicesClick() {
-        Stage currentStage = (Stage) view.getScene().getWindow();
-        
-        ServiceController serviceController = new ServiceController();
-        Scene serviceScene = new Scene(serviceController.getView(), 1400, 800);
-        
-        Stage serviceStage = new Stage();
-        serviceStage.setTitle("📦 Gestion des Services");
-        serviceStage.setScene(serviceScene);
-        configurerFenetre(serviceStage);
-        serviceStage.show();
+        WindowManager.openWindow(WindowManager.Page.SERVICES);
     }
 
     private void handleSuppliersClick() {
-        Stage currentStage = (Stage) view.getScene().getWindow();
-        
-        FournisseurController fournisseurController = new FournisseurController();
-        Scene fournisseurScene = new Scene(fournisseurController.getView(), 1200, 800);
-        
-        Stage fournisseurStage = new Stage();
-        fournisseurStage.setTitle("🏭 Gestion des Fournisseurs");
-        fournisseurStage.setScene(fournisseurScene);
-        configurerFenetre(fournisseurStage);
-        fournisseurStage.show();
+        WindowManager.openWindow(WindowManager.Page.SUPPLIERS);
     }
-    private void configurerFenetre(Stage stage) {
-    // Permettre le redimensionnement
-    stage.setResizable(true);
-    
-    // Mettre en plein écran
-    stage.setMaximized(true);
-    
-    // Ou si vous préférez maximisé mais pas plein écran :
-    // stage.setMaximized(true);
-    
-    // Ajouter un gestionnaire pour fermer la fenêtre avec la croix
-    stage.setOnCloseRequest(event -> {
-        // Vous pouvez ajouter des vérifications ici si besoin
-        // Par exemple, sauvegarder des données avant fermeture
-        System.out.println("Fermeture de la fenêtre: " + stage.getTitle());
-    });
-}
+
     private void handlePaymentsClick() {
         showAlert("Payments Module", "Payments page is not yet implemented.");
     }
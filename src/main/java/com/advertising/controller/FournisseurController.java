@@ -1,8 +1,8 @@
 package com.advertising.controller;
 
-import com.advertising.util.DatabaseConnection;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import com.advertising.service.AppRepository;
+import javafx.collections.transformation.FilteredList;
+import javafx.collections.transformation.SortedList;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.*;
@@ -13,11 +13,13 @@ import javafx.scene.text.Text;
 import java.sql.*;
 import java.util.Optional;
 
-public class FournisseurController {
+public class FournisseurController implements ManagedView {
 
     private BorderPane view;
     private TableView<Fournisseur> fournisseurTable;
-    private ObservableList<Fournisseur> fournisseurList;
+    // Shared with every window through the repository; filtered here for the search
+    private final AppRepository repository = AppRepository.getInstance();
+    private final FilteredList<Fournisseur> filteredFournisseurs = new FilteredList<>(repository.getSuppliers());
     private TextField searchField;
     
     // Formulaire
@@ -32,7 +34,6 @@ public class FournisseurController {
 
     public FournisseurController() {
         createView();
-        loadFournisseurs();
     }
 
     public BorderPane getView() {
@@ -86,7 +87,7 @@ public class FournisseurController {
         clearSearchButton.setStyle("-fx-background-color: #95a5a6; -fx-text-fill: white; -fx-background-radius: 5; -fx-padding: 10 20;");
         clearSearchButton.setOnAction(e -> {
             searchField.clear();
-            loadFournisseurs();
+            filteredFournisseurs.setPredicate(null);
         });
         
         Region spacer = new Region();
@@ -229,11 +230,15 @@ public class FournisseurController {
         });
         
         fournisseurTable.getColumns().addAll(idCol, nomCol, phoneCol, emailCol, adresseCol, actionsCol);
+
+        SortedList<Fournisseur> sortedFournisseurs = new SortedList<>(filteredFournisseurs);
+        sortedFournisseurs.comparatorProperty().bind(fournisseurTable.comparatorProperty());
+        fournisseurTable.setItems(sortedFournisseurs);
         
         HBox tableButtons = new HBox(10);
         Button refreshButton = new Button("🔄 Actualiser");
         refreshButton.setStyle("-fx-background-color: #3498db; -fx-text-fill: white; -fx-background-radius: 5; -fx-padding: 10 20;");
-        refreshButton.setOnAction(e -> loadFournisseurs());
+        refreshButton.setOnAction(e -> repository.refresh());
         
         tableButtons.getChildren().addAll(refreshButton);
         
@@ -243,56 +248,18 @@ public class FournisseurController {
         return tableBox;
     }
 
-    private void loadFournisseurs() {
-        fournisseurList = FXCollections.observableArrayList();
-        
-        try {
-            Connection conn = DatabaseConnection.getConnection();
-            String query = "SELECT * FROM fournisseur ORDER BY nom";
-            PreparedStatement stmt = conn.prepareStatement(query);
-            ResultSet rs = stmt.executeQuery();
-            
-            while (rs.next()) {
-                Fournisseur fournisseur = new Fournisseur(
-                    rs.getInt("id_fournisseur"),
-                    rs.getString("nom"),
-                    rs.getString("telephone"),
-                    rs.getString("email"),
-                    rs.getString("adresse")
-                );
-                fournisseurList.add(fournisseur);
-            }
-            
-            fournisseurTable.setItems(fournisseurList);
-            
-            rs.close();
-            stmt.close();
-            
-        } catch (SQLException e) {
-            e.printStackTrace();
-            showAlert("Erreur", "Erreur lors du chargement des fournisseurs: " + e.getMessage());
-        }
-    }
-
     private void searchFournisseurs() {
         String searchText = searchField.getText().trim().toLowerCase();
         
         if (searchText.isEmpty()) {
-            loadFournisseurs();
+            filteredFournisseurs.setPredicate(null);
             return;
         }
         
-        ObservableList<Fournisseur> filteredList = FXCollections.observableArrayList();
-        
-        for (Fournisseur fournisseur : fournisseurList) {
-            if (fournisseur.getNom().toLowerCase().contains(searchText) ||
-                (fournisseur.getTelephone() != null && fournisseur.getTelephone().toLowerCase().contains(searchText)) ||
-                (fournisseur.getEmail() != null && fournisseur.getEmail().toLowerCase().contains(searchText))) {
-                filteredList.add(fournisseur);
-            }
-        }
-        
-        fournisseurTable.setItems(filteredList);
+        filteredFournisseurs.setPredicate(fournisseur ->
+            fournisseur.getNom().toLowerCase().contains(searchText) ||
+            (fournisseur.getTelephone() != null && fournisseur.getTelephone().toLowerCase().contains(searchText)) ||
+            (fournisseur.getEmail() != null && fournisseur.getEmail().toLowerCase().contains(searchText)));
     }
 
     private void saveFournisseur() {
@@ -301,46 +268,30 @@ public class FournisseurController {
             return;
         }
         
+        boolean creating = currentFournisseurId == -1;
+        String nom = nomField.getText().trim();
+        String telephone = telephoneField.getText().trim();
+        String email = emailField.getText().trim();
+        String adresse = adresseArea.getText().trim();
+        
         try {
-            Connection conn = DatabaseConnection.getConnection();
-            String query;
-            PreparedStatement stmt;
-            
-            if (currentFournisseurId == -1) {
-                query = "INSERT INTO fournisseur (nom, telephone, email, adresse) VALUES (?, ?, ?, ?)";
-                stmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS);
+            boolean saved;
+            if (creating) {
+                repository.addSupplier(nom, telephone, email, adresse);
+                saved = true;
             } else {
-                query = "UPDATE fournisseur SET nom = ?, telephone = ?, email = ?, adresse = ? WHERE id_fournisseur = ?";
-                stmt = conn.prepareStatement(query);
-                stmt.setInt(5, currentFournisseurId);
+                saved = repository.updateSupplier(
+                    new Fournisseur(currentFournisseurId, nom, telephone, email, adresse));
             }
             
-            stmt.setString(1, nomField.getText().trim());
-            stmt.setString(2, telephoneField.getText().trim());
-            stmt.setString(3, emailField.getText().trim());
-            stmt.setString(4, adresseArea.getText().trim());
-            
-            int rowsAffected = stmt.executeUpdate();
-            
-            if (rowsAffected > 0) {
-                if (currentFournisseurId == -1) {
-                    ResultSet rs = stmt.getGeneratedKeys();
-                    if (rs.next()) {
-                        currentFournisseurId = rs.getInt(1);
-                    }
-                    rs.close();
-                }
-                
-                showAlert("Succès", currentFournisseurId == -1 ? 
+            if (saved) {
+                showAlert("Succès", creating ? 
                     "Fournisseur ajouté avec succès !" : 
                     "Fournisseur modifié avec succès !");
                 
                 clearForm();
-                loadFournisseurs();
             }
             
-            stmt.close();
-            
         } catch (SQLException e) {
             e.printStackTrace();
             showAlert("Erreur", "Erreur lors de l'enregistrement: " + e.getMessage());
@@ -367,17 +318,8 @@ public class FournisseurController {
         Optional<ButtonType> result = alert.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
             try {
-                Connection conn = DatabaseConnection.getConnection();
-                String query = "DELETE FROM fournisseur WHERE id_fournisseur = ?";
-                PreparedStatement stmt = conn.prepareStatement(query);
-                stmt.setInt(1, fournisseur.getId());
-                
-                int rowsAffected = stmt.executeUpdate();
-                stmt.close();
-                
-                if (rowsAffected > 0) {
+                if (repository.deleteSupplier(fournisseur.getId())) {
                     showAlert("Succès", "Fournisseur supprimé avec succès !");
-                    loadFournisseurs();
                 }
                 
             } catch (SQLException e) {
@@ -8,7 +8,7 @@ import javafx.scene.layout.*;
 import javafx.scene.text.Font;
 import javafx.scene.text.Text;
 
-public class LoginController {
+public class LoginController implements ManagedView {
 
     private VBox view;
     private TextField usernameField;
@@ -23,6 +23,13 @@ public class LoginController {
         return view;
     }
 
+    @Override
+    public void onShow() {
+        // Retour après déconnexion : pas de mot de passe ni d'erreur résiduels
+        passwordField.clear();
+        errorLabel.setVisible(false);
+    }
+
     private void createView() {
         // Container principal
         VBox root = new VBox();
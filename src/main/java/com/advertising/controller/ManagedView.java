@@ -0,0 +1,19 @@
+package com.advertising.controller;
+
+import javafx.scene.Parent;
+
+/**
+ * A controller whose view is kept by the {@link WindowManager} and shown
+ * again instead of being rebuilt
+ */
+public interface ManagedView {
+
+    Parent getView();
+
+    /**
+     * Called every time the view is shown or brought back to the front.
+     * Views already kept current by the shared caches have nothing to do.
+     */
+    default void onShow() {
+    }
+}
@@ -1,10 +1,24 @@
 package com.advertising.controller;
 
 import com.advertising.util.DatabaseConnection;
+import com.advertising.util.StatementCanceller;
+import com.advertising.service.AppRepository;
 import com.advertising.service.ServiceManager;
 import com.advertising.service.PdfReportGenerator;
+import com.advertising.service.PagedServiceList;
+import com.advertising.service.ServiceQuery;
+import com.advertising.service.ServiceIndex;
+import com.advertising.service.ServiceStatisticsAccumulator;
+import com.advertising.service.CsvImporter;
+import com.advertising.service.ReceivablesAgingCache;
+import com.advertising.service.InvoiceBatchGenerator;
+import com.advertising.service.InvoiceJobQueue;
 import com.advertising.component.ServiceStatisticsPanel;
+import com.advertising.component.InvoiceJobsPanel;
+import javafx.animation.PauseTransition;
+import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.*;
+import javafx.concurrent.Task;
 import javafx.geometry.*;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
@@ -18,23 +32,72 @@ import javafx.scene.Parent;
 import javafx.scene.control.ButtonBar.ButtonData;
 import java.sql.*;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.awt.Desktop;
 import java.io.File;
 import java.io.IOException;
 import javafx.scene.layout.Region;
 import javafx.scene.layout.Priority;
 
+import javafx.stage.FileChooser;
+import javafx.util.Duration;
 import javafx.util.StringConverter;
 
-public class ServiceController {
+public class ServiceController implements ManagedView {
 
     private BorderPane view;
     private TableView<Service> serviceTable;
-    private ObservableList<Service> serviceList = FXCollections.observableArrayList();
-    private ObservableList<Service> filteredList = FXCollections.observableArrayList();
+
+    // Rows matching the current filters, fetched page by page as the user scrolls
+    private final PagedServiceList pagedServices;
+    // Server-side totals for the current filters
+    private final ServiceStatisticsAccumulator statistics = new ServiceStatisticsAccumulator();
+
+    // Background loads: grid totals, first page and filter lookups run in parallel
+    private final ExecutorService loadExecutor = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "service-loader");
+        t.setDaemon(true);
+        return t;
+    });
+    private Task<?> gridLoadTask;
+    private Task<?> breakdownLoadTask;
+
+    // In-memory mirror of every service, answering filter changes without
+    // MySQL; null while (re)building or when there are too many services
+    private ServiceIndex serviceIndex;
+    private Task<?> indexBuildTask;
+    private int indexVersion = 0;
+    // Set while combos are filled programmatically so they don't trigger a reload
+    private boolean updatingFilterControls = false;
+
+    // Bursts of filter changes are coalesced into one evaluation
+    private static final Duration FILTER_QUIET_WINDOW = Duration.millis(150);
+    private final PauseTransition filterDebounce = new PauseTransition(FILTER_QUIET_WINDOW);
+    private ServiceQuery appliedQuery;
+    private StatementCanceller gridCanceller;
+
+    // Multi-select mode: services ticked for a grouped payment, by id, so the
+    // selection survives page eviction and filter changes
+    private final Map<Integer, Service> batchSelection = new LinkedHashMap<>();
+    private TableColumn<Service, Void> selectCol;
+    private Button batchModeButton;
+    private Button batchPayButton;
+    private static final int SKELETON_ROWS = 12;
 
     private ComboBox<String> filterClientCombo;
     private ComboBox<String> filterTypeCombo;
@@ -43,10 +106,17 @@ public class ServiceController {
     private DatePicker dateFromPicker;
     private DatePicker dateToPicker;
 
+    // Clients and types shared with the other windows; service mutations
+    // (from any window) arrive through serviceListener
+    private final AppRepository repository = AppRepository.getInstance();
+    private final Consumer<AppRepository.ServiceChange> serviceListener = this::onServiceChanged;
+    private final ListChangeListener<String> lookupListener = c -> publishFilterData();
+
     // NEW: Refactored components for better separation of concerns
     private final ServiceManager serviceManager;
     private final PdfReportGenerator pdfGenerator;
     private final ServiceStatisticsPanel statisticsPanel;
+    private final InvoiceJobsPanel invoiceJobsPanel;
 
     // Formateur de date
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
@@ -58,11 +128,23 @@ public class ServiceController {
         this.serviceManager = new ServiceManager();
         this.pdfGenerator = new PdfReportGenerator();
         this.statisticsPanel = new ServiceStatisticsPanel();
+        this.statisticsPanel.setOnBreakdownRequested(this::loadBreakdown);
+        this.invoiceJobsPanel = new InvoiceJobsPanel();
+        this.invoiceJobsPanel.setOnOpen(this::openInvoice);
+        this.pagedServices = new PagedServiceList(serviceManager);
+        this.pagedServices.setErrorHandler(e -> {
+            e.printStackTrace();
+            showError("Erreur", "Impossible de charger les services: " + e.getMessage());
+        });
+        this.pagedServices.addListener(statistics);
+        this.statistics.setOnChange(this::updateStatistics);
 
         createView();
-        loadServices();
-        loadFilterData();
-        updateStatistics();
+        repository.addServiceListener(serviceListener);
+        repository.getClientNames().addListener(new WeakListChangeListener<>(lookupListener));
+        repository.getServiceTypeNames().addListener(new WeakListChangeListener<>(lookupListener));
+        publishFilterData();
+        loadInitialData();
     }
 
     public BorderPane getView() {
@@ -84,7 +166,26 @@ public class ServiceController {
         Button addButton = createStyledButton("➕ Nouveau Service", "#2ecc71");
         addButton.setOnAction(e -> showAddServiceDialog());
 
-        HBox header = new HBox(15, title, addButton);
+        batchModeButton = createStyledButton("☑ Paiement groupé", "#8e44ad");
+        batchModeButton.setOnAction(e -> setBatchMode(!selectCol.isVisible()));
+
+        batchPayButton = createStyledButton("💰 Encaisser la sélection (0)", "#1f7c33");
+        batchPayButton.setOnAction(e -> showBatchPaymentDialog());
+        batchPayButton.setVisible(false);
+        batchPayButton.setManaged(false);
+        batchPayButton.setDisable(true);
+
+        Button importButton = createStyledButton("📥 Importer CSV", "#34495e");
+        importButton.setOnAction(e -> showImportDialog());
+
+        Button agingButton = createStyledButton("⏳ Créances", "#d35400");
+        agingButton.setOnAction(e -> showAgingReport());
+
+        Button invoicesButton = createStyledButton("🧾 Factures en lot", "#16a085");
+        invoicesButton.setOnAction(e -> generateInvoiceBatch());
+
+        HBox header = new HBox(15, title, addButton, importButton, agingButton, invoicesButton,
+                batchModeButton, batchPayButton);
         header.setAlignment(Pos.CENTER_LEFT);
         header.setPadding(new Insets(0, 0, 10, 0));
 
@@ -111,6 +212,8 @@ public class ServiceController {
         // This prevents it from being pushed off-screen by other components
         root.setCenter(mainContent);
         root.setBottom(statisticsPanel);
+        root.setRight(invoiceJobsPanel);
+        BorderPane.setMargin(invoiceJobsPanel, new Insets(0, 0, 10, 10));
 
         view = root;
     }
@@ -123,19 +226,13 @@ public class ServiceController {
         filterClientCombo = new ComboBox<>();
         filterClientCombo.setPromptText("Client");
         filterClientCombo.setPrefWidth(150); // Largeur réduite
-        filterClientCombo.setOnAction(e -> {
-            applyFilters();
-            updateStatistics();
-        });
+        filterClientCombo.setOnAction(e -> requestFilters());
 
         // Filtre type de service
         filterTypeCombo = new ComboBox<>();
         filterTypeCombo.setPromptText("Service");
         filterTypeCombo.setPrefWidth(150);
-        filterTypeCombo.setOnAction(e -> {
-            applyFilters();
-            updateStatistics();
-        });
+        filterTypeCombo.setOnAction(e -> requestFilters());
 
         // Filtre statut paiement
         filterPaiementCombo = new ComboBox<>();
@@ -146,10 +243,7 @@ public class ServiceController {
                 "PAYE");
         filterPaiementCombo.setValue("Tous les statuts paiement");
         filterPaiementCombo.setPrefWidth(180); // Largeur réduite
-        filterPaiementCombo.setOnAction(e -> {
-            applyFilters();
-            updateStatistics();
-        });
+        filterPaiementCombo.setOnAction(e -> requestFilters());
 
         firstFilterRow.getChildren().addAll(
                 new Label("Client:"),
@@ -172,10 +266,7 @@ public class ServiceController {
                 "TERMINE");
         filterServiceCombo.setValue("Tous les statuts service");
         filterServiceCombo.setPrefWidth(150);
-        filterServiceCombo.setOnAction(e -> {
-            applyFilters();
-            updateStatistics();
-        });
+        filterServiceCombo.setOnAction(e -> requestFilters());
 
         // Filtre date (du)
         dateFromPicker = new DatePicker();
@@ -211,10 +302,7 @@ public class ServiceController {
 
         // Bouton réinitialiser
         Button resetButton = createSmallButton("🔄 Réinitialiser", "#95a5a6");
-        resetButton.setOnAction(e -> {
-            resetFilters();
-            updateStatistics();
-        });
+        resetButton.setOnAction(e -> resetFilters());
 
         secondFilterRow.getChildren().addAll(
                 new Label("Statut service:"),
@@ -246,8 +334,7 @@ public class ServiceController {
                     return;
                 }
             }
-            applyFilters();
-            updateStatistics();
+            requestFilters();
         });
 
         dateToPicker.valueProperty().addListener((obs, oldVal, newVal) -> {
@@ -258,8 +345,7 @@ public class ServiceController {
                     return;
                 }
             }
-            applyFilters();
-            updateStatistics();
+            requestFilters();
         });
     }
 
@@ -269,8 +355,45 @@ public class ServiceController {
         serviceTable.setStyle("-fx-background-color: white; -fx-background-radius: 8;"); // Hauteur fixe raisonnable
 
         // Colonnes
+        selectCol = new TableColumn<>("☑");
+        selectCol.setCellFactory(col -> new TableCell<>() {
+            private final CheckBox checkBox = new CheckBox();
+
+            {
+                checkBox.setOnAction(e -> {
+                    Service service = getTableRow().getItem();
+                    if (service != null && !service.isPlaceholder()) {
+                        toggleBatchSelection(service, checkBox.isSelected());
+                    }
+                });
+            }
+
+            @Override
+            protected void updateItem(Void item, boolean empty) {
+                super.updateItem(item, empty);
+                Service service = getTableRow() != null ? getTableRow().getItem() : null;
+                if (empty || service == null || service.isPlaceholder()) {
+                    setGraphic(null);
+                } else {
+                    checkBox.setSelected(batchSelection.containsKey(service.getId()));
+                    setGraphic(checkBox);
+                }
+            }
+        });
+        selectCol.setPrefWidth(35);
+        selectCol.setMinWidth(35);
+        selectCol.setMaxWidth(40);
+        selectCol.setVisible(false);
+
         TableColumn<Service, Integer> idCol = new TableColumn<>("#ID");
         idCol.setCellValueFactory(new PropertyValueFactory<>("id"));
+        idCol.setCellFactory(col -> new TableCell<>() {
+            @Override
+            protected void updateItem(Integer item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty || item == null || isPlaceholderRow(this) ? null : String.valueOf(item));
+            }
+        });
         idCol.setPrefWidth(50); // Largeur réduite
         idCol.setMinWidth(50);
         idCol.setMaxWidth(60);
@@ -299,7 +422,7 @@ public class ServiceController {
             @Override
             protected void updateItem(Double item, boolean empty) {
                 super.updateItem(item, empty);
-                if (empty || item == null) {
+                if (empty || item == null || isPlaceholderRow(this)) {
                     setText(null);
                 } else {
                     setText(String.format("%,.0f DZD", item)); // Pas de décimales
@@ -317,7 +440,7 @@ public class ServiceController {
             @Override
             protected void updateItem(Double item, boolean empty) {
                 super.updateItem(item, empty);
-                if (empty || item == null) {
+                if (empty || item == null || isPlaceholderRow(this)) {
                     setText(null);
                 } else {
                     setText(String.format("%,.0f DZD", item));
@@ -334,7 +457,7 @@ public class ServiceController {
             @Override
             protected void updateItem(Double item, boolean empty) {
                 super.updateItem(item, empty);
-                if (empty || item == null) {
+                if (empty || item == null || isPlaceholderRow(this)) {
                     setText(null);
                 } else {
                     setText(String.format("%,.0f DZD", item));
@@ -481,7 +604,7 @@ public class ServiceController {
             @Override
             protected void updateItem(Void item, boolean empty) {
                 super.updateItem(item, empty);
-                if (empty) {
+                if (empty || isPlaceholderRow(this)) {
                     setGraphic(null);
                 } else {
                     setGraphic(pane);
@@ -493,10 +616,13 @@ public class ServiceController {
         actionsCol.setMaxWidth(190);
 
         serviceTable.getColumns().addAll(
-                idCol, clientCol, typeCol,
+                selectCol, idCol, clientCol, typeCol,
                 prixCol, payeCol, resteCol,
                 statutPaiementCol, statutServiceCol, dateCol, actionsCol);
 
+        // Rows arrive already ordered by date from the database, page by page
+        serviceTable.getColumns().forEach(col -> col.setSortable(false));
+
         ScrollPane scrollPane = new ScrollPane(serviceTable);
         scrollPane.setFitToWidth(true);
         scrollPane.setFitToHeight(true);
@@ -515,6 +641,11 @@ public class ServiceController {
     // The statistics panel is created once in constructor and updated via
     // updateStatistics()
 
+    private static boolean isPlaceholderRow(TableCell<Service, ?> cell) {
+        TableRow<Service> row = cell.getTableRow();
+        return row != null && row.getItem() != null && row.getItem().isPlaceholder();
+    }
+
     private Button createStyledButton(String text, String color) {
         Button btn = new Button(text);
         btn.setStyle("-fx-background-color: " + color + "; " +
@@ -572,172 +703,620 @@ public class ServiceController {
     // NOUVELLE FONCTIONNALITÉ : GÉNÉRATION PDF
     // ==========================
 
+    /**
+     * Queue the invoice: the PDF is written in the background and listed
+     * in the jobs panel, where it is opened once ready
+     */
     private void generatePaymentReport(Service service) {
         try {
-            // Load payment history
-            ObservableList<Payment> payments = loadPaymentHistory(service.getId());
-
-            // Get client details
-            ServiceManager.ClientDetails clientDetails = serviceManager.getClientDetails(service.getClient());
-
-            // Generate professional PDF invoice
-            File pdfFile = pdfGenerator.generateServiceInvoice(service, payments, clientDetails);
+            InvoiceJobQueue.getInstance().submit(service);
+        } catch (RejectedExecutionException e) {
+            showError("Occupé", "Trop de factures en attente, réessayez dans quelques instants.");
+        }
+    }
 
-            // Open the PDF file
+    private void openInvoice(File pdfFile) {
+        try {
             if (Desktop.isDesktopSupported()) {
                 Desktop.getDesktop().open(pdfFile);
             } else {
                 showInfo("Fichier PDF", "Le fichier PDF a été créé : " + pdfFile.getAbsolutePath());
             }
-
-            showInfo("Facture générée", "✅ La facture a été générée avec succès !\nFichier : " + pdfFile.getName());
-
         } catch (Exception e) {
             e.printStackTrace();
-            showError("Erreur", "Impossible de générer la facture : " + e.getMessage());
+            showError("Erreur", "Impossible d'ouvrir la facture : " + e.getMessage());
         }
     }
 
     // ==========================
-    // CHARGEMENT DES DONNÉES
+    // IMPORT CSV
     // ==========================
-    private void loadServices() {
-        serviceList.clear();
+    private void showImportDialog() {
+        ChoiceDialog<String> choice = new ChoiceDialog<>("Services", "Services", "Clients");
+        choice.setTitle("📥 Import CSV");
+        choice.setHeaderText("Importer des services ou des clients depuis un fichier CSV\n"
+                + "(importez les clients avant leurs services)");
+        choice.setContentText("Type de données:");
+        Optional<String> kind = choice.showAndWait();
+        if (kind.isEmpty()) {
+            return;
+        }
 
-        String sql = """
-                    SELECT s.id_service, c.nom AS client,
-                           ts.nom_type AS type_service,
-                           s.description,
-                           s.prix_total, s.montant_paye,
-                           s.reste_a_payer, s.etat_paiement,
-                           s.statut_service,
-                           s.date_creation
-                    FROM service s
-                    JOIN client c ON s.id_client = c.id_client
-                    JOIN type_service ts ON s.id_type_service = ts.id_type_service
-                    ORDER BY s.date_creation DESC
-                """;
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Choisir le fichier CSV");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Fichiers CSV", "*.csv", "*.txt"));
+        File file = chooser.showOpenDialog(view.getScene() != null ? view.getScene().getWindow() : null);
+        if (file == null) {
+            return;
+        }
 
-        try (Connection conn = DatabaseConnection.getConnection();
-                PreparedStatement ps = conn.prepareStatement(sql);
-                ResultSet rs = ps.executeQuery()) {
+        boolean services = kind.get().equals("Services");
+        Task<CsvImporter.ImportResult> task = new Task<>() {
+            @Override
+            protected CsvImporter.ImportResult call() throws Exception {
+                CsvImporter importer = new CsvImporter();
+                return services ? importer.importServices(file.toPath()) : importer.importClients(file.toPath());
+            }
+        };
+        task.setOnSucceeded(e -> {
+            CsvImporter.ImportResult result = task.getValue();
+            if (result.getInserted() > 0 && services) {
+                repository.publishServicesReloaded();
+            } else if (result.getInserted() > 0) {
+                repository.refresh();
+            }
+            showImportResult(result);
+        });
+        task.setOnFailed(e -> {
+            Throwable error = task.getException();
+            error.printStackTrace();
+            showError("Erreur", "Import impossible: " + error.getMessage());
+        });
+        loadExecutor.submit(task);
+    }
 
-            while (rs.next()) {
-                serviceList.add(new Service(
-                        rs.getInt("id_service"),
-                        rs.getString("client"),
-                        rs.getString("type_service"),
-                        rs.getString("description"),
-                        rs.getDouble("prix_total"),
-                        rs.getDouble("montant_paye"),
-                        rs.getDouble("reste_a_payer"),
-                        rs.getString("etat_paiement"),
-                        rs.getString("statut_service"),
-                        rs.getTimestamp("date_creation")));
-            }
-
-            filteredList.setAll(serviceList);
-            serviceTable.setItems(filteredList);
-            updateStatistics();
+    private void showImportResult(CsvImporter.ImportResult result) {
+        String summary = "✅ " + result.getInserted() + " ligne(s) importée(s)";
+        if (result.getFailed() == 0) {
+            showInfo("Import terminé", summary);
+            return;
+        }
 
-        } catch (SQLException e) {
-            e.printStackTrace();
-            showError("Erreur", "Impossible de charger les services: " + e.getMessage());
+        StringBuilder details = new StringBuilder();
+        result.getErrors().forEach(error -> details.append(error).append('\n'));
+        if (result.getFailed() > result.getErrors().size()) {
+            details.append("... ").append(result.getFailed() - result.getErrors().size())
+                    .append(" autre(s) erreur(s)");
         }
+
+        TextArea errorsArea = new TextArea(details.toString());
+        errorsArea.setEditable(false);
+        errorsArea.setWrapText(true);
+        errorsArea.setPrefRowCount(12);
+
+        Alert a = new Alert(Alert.AlertType.WARNING);
+        a.setTitle("Import terminé");
+        a.setHeaderText(summary + ", " + result.getFailed() + " ligne(s) rejetée(s)");
+        a.getDialogPane().setContent(errorsArea);
+        a.showAndWait();
     }
 
-    private void loadFilterData() {
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            // Charger les clients
-            ResultSet rs = conn.prepareStatement(
-                    "SELECT DISTINCT nom FROM client ORDER BY nom").executeQuery();
-            filterClientCombo.getItems().clear();
-            filterClientCombo.getItems().add("Tous les clients");
-            while (rs.next()) {
-                filterClientCombo.getItems().add(rs.getString("nom"));
+    // ==========================
+    // FACTURES EN LOT
+    // ==========================
+
+    /**
+     * Invoices of the ticked services, or else of every service matching
+     * the filters, written in parallel into a new folder
+     */
+    private void generateInvoiceBatch() {
+        List<Service> selected = new ArrayList<>(batchSelection.values());
+        ServiceQuery query = appliedQuery != null ? appliedQuery : buildQuery();
+
+        if (selected.isEmpty()) {
+            int count = statistics.snapshot().getServiceCount();
+            if (count == 0) {
+                showInfo("Factures en lot", "Aucun service ne correspond aux filtres.");
+                return;
             }
-            filterClientCombo.setValue("Tous les clients");
+            Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
+            confirm.setTitle("🧾 Factures en lot");
+            confirm.setHeaderText("Générer les factures des " + count + " service(s) filtré(s) ?");
+            confirm.setContentText("Cochez des services en mode paiement groupé pour n'en facturer qu'une partie.");
+            if (confirm.showAndWait().filter(b -> b == ButtonType.OK).isEmpty()) {
+                return;
+            }
+        }
 
-            // Charger les types de service
-            rs = conn.prepareStatement(
-                    "SELECT DISTINCT nom_type FROM type_service ORDER BY nom_type").executeQuery();
-            filterTypeCombo.getItems().clear();
-            filterTypeCombo.getItems().add("Tous les services");
-            while (rs.next()) {
-                filterTypeCombo.getItems().add(rs.getString("nom_type"));
+        Task<InvoiceBatchGenerator.BatchResult> task = new Task<>() {
+            @Override
+            protected InvoiceBatchGenerator.BatchResult call() throws Exception {
+                List<Service> services = new ArrayList<>();
+                if (!selected.isEmpty()) {
+                    // Rows as they are now: paid amounts and statuses may have
+                    // changed since they were ticked (deleted ones drop out)
+                    updateMessage("Lecture des services...");
+                    List<Integer> ids = new ArrayList<>();
+                    selected.forEach(service -> ids.add(service.getId()));
+                    Map<Integer, Service> current = new LinkedHashMap<>();
+                    serviceManager.loadServices(ids).forEach(service -> current.put(service.getId(), service));
+                    for (Integer id : ids) {
+                        if (current.containsKey(id)) {
+                            services.add(current.get(id));
+                        }
+                    }
+                } else {
+                    updateMessage("Lecture des services...");
+                    List<Service> matching = new ArrayList<>();
+                    serviceManager.forEachService(query, service -> {
+                        if (isCancelled()) {
+                            throw new CancellationException();
+                        }
+                        matching.add(service);
+                    });
+                    services = matching;
+                }
+                updateMessage("Lecture des paiements et des clients...");
+                return new InvoiceBatchGenerator(serviceManager).generate(services, (done, total) -> {
+                    updateProgress(done, total);
+                    updateMessage(done + " / " + total + " facture(s)");
+                });
             }
-            filterTypeCombo.setValue("Tous les services");
+        };
+
+        ProgressBar progressBar = new ProgressBar();
+        progressBar.setPrefWidth(360);
+        progressBar.progressProperty().bind(task.progressProperty());
+        Label progressLabel = new Label();
+        progressLabel.textProperty().bind(task.messageProperty());
+
+        Dialog<Void> progressDialog = new Dialog<>();
+        progressDialog.setTitle("🧾 Factures en lot");
+        progressDialog.setHeaderText("Génération des factures en cours");
+        progressDialog.getDialogPane().getButtonTypes().add(ButtonType.CANCEL);
+        VBox content = new VBox(10, progressLabel, progressBar);
+        content.setPadding(new Insets(10));
+        progressDialog.getDialogPane().setContent(content);
+        // Closing the dialog before the end cancels the batch
+        progressDialog.setOnHidden(e -> task.cancel(true));
 
-        } catch (SQLException e) {
-            e.printStackTrace();
+        task.setOnSucceeded(e -> {
+            progressDialog.close();
+            showInvoiceBatchResult(task.getValue());
+        });
+        task.setOnFailed(e -> {
+            progressDialog.close();
+            Throwable error = task.getException();
+            error.printStackTrace();
+            showError("Erreur", "Impossible de générer les factures: " + error.getMessage());
+        });
+
+        loadExecutor.submit(task);
+        progressDialog.show();
+    }
+
+    private void showInvoiceBatchResult(InvoiceBatchGenerator.BatchResult result) {
+        List<InvoiceBatchGenerator.Failure> failures = result.getFailures();
+        String summary = "✅ " + result.getFiles().size() + " facture(s) générée(s) dans "
+                + result.getDirectory().getPath();
+
+        Alert a = new Alert(failures.isEmpty() ? Alert.AlertType.INFORMATION : Alert.AlertType.WARNING);
+        a.setTitle("Factures en lot");
+        if (failures.isEmpty()) {
+            a.setHeaderText(summary);
+        } else {
+            StringBuilder details = new StringBuilder();
+            failures.forEach(f -> details.append("#").append(f.getServiceId()).append(" - ")
+                    .append(f.getClient()).append(" : ").append(f.getMessage()).append('\n'));
+
+            TextArea errorsArea = new TextArea(details.toString());
+            errorsArea.setEditable(false);
+            errorsArea.setWrapText(true);
+            errorsArea.setPrefRowCount(10);
+
+            a.setHeaderText(summary + ", " + failures.size() + " en échec");
+            a.getDialogPane().setContent(errorsArea);
         }
+
+        ButtonType openFolder = new ButtonType("📂 Ouvrir le dossier", ButtonData.LEFT);
+        a.getButtonTypes().add(openFolder);
+        a.showAndWait().filter(b -> b == openFolder).ifPresent(b -> {
+            try {
+                Desktop.getDesktop().open(result.getDirectory());
+            } catch (Exception e) {
+                e.printStackTrace();
+                showError("Erreur", "Impossible d'ouvrir le dossier: " + e.getMessage());
+            }
+        });
     }
 
     // ==========================
-    // FILTRES
+    // BALANCE ÂGÉE (CRÉANCES)
     // ==========================
-    private void applyFilters() {
-        String selectedClient = filterClientCombo.getValue();
-        String selectedType = filterTypeCombo.getValue();
-        String selectedPaiement = filterPaiementCombo.getValue();
-        String selectedService = filterServiceCombo.getValue();
-        LocalDate dateFrom = dateFromPicker.getValue();
-        LocalDate dateTo = dateToPicker.getValue();
-
-        filteredList.setAll(serviceList.filtered(service -> {
-            // Filtre client
-            if (selectedClient != null && !selectedClient.equals("Tous les clients")) {
-                if (!service.getClient().equals(selectedClient))
-                    return false;
+    private void showAgingReport() {
+        Task<List<ServiceManager.ClientAging>> task = new Task<>() {
+            @Override
+            protected List<ServiceManager.ClientAging> call() throws Exception {
+                return ReceivablesAgingCache.get();
             }
+        };
+        task.setOnSucceeded(e -> showAgingDialog(task.getValue()));
+        task.setOnFailed(e -> {
+            Throwable error = task.getException();
+            error.printStackTrace();
+            showError("Erreur", "Impossible de calculer les créances: " + error.getMessage());
+        });
+        loadExecutor.submit(task);
+    }
+
+    private void showAgingDialog(List<ServiceManager.ClientAging> rows) {
+        Dialog<Void> dialog = new Dialog<>();
+        dialog.setTitle("⏳ Balance âgée");
+        dialog.setHeaderText("Reste à payer par client, selon l'ancienneté du service");
+
+        ButtonType exportButtonType = new ButtonType("📄 Exporter PDF", ButtonData.LEFT);
+        dialog.getDialogPane().getButtonTypes().addAll(exportButtonType, ButtonType.CLOSE);
+
+        TableView<ServiceManager.ClientAging> agingTable = new TableView<>(FXCollections.observableArrayList(rows));
+        agingTable.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_FLEX_LAST_COLUMN);
+        agingTable.setPlaceholder(new Label("Aucune créance en cours"));
+        agingTable.setPrefHeight(360);
+
+        TableColumn<ServiceManager.ClientAging, String> clientCol = new TableColumn<>("👤 Client");
+        clientCol.setCellValueFactory(new PropertyValueFactory<>("client"));
+        clientCol.setPrefWidth(180);
+
+        TableColumn<ServiceManager.ClientAging, Integer> countCol = new TableColumn<>("Services");
+        countCol.setCellValueFactory(new PropertyValueFactory<>("serviceCount"));
+        countCol.setPrefWidth(70);
+
+        agingTable.getColumns().addAll(List.of(clientCol, countCol,
+                agingAmountColumn("0-30 j", ServiceManager.ClientAging::getUpTo30, null),
+                agingAmountColumn("31-60 j", ServiceManager.ClientAging::getFrom31To60, null),
+                agingAmountColumn("61-90 j", ServiceManager.ClientAging::getFrom61To90, "#e67e22"),
+                agingAmountColumn("+90 j", ServiceManager.ClientAging::getOver90, "#e74c3c"),
+                agingAmountColumn("Total", ServiceManager.ClientAging::getTotal, "#2c3e50")));
+
+        double total = rows.stream().mapToDouble(ServiceManager.ClientAging::getTotal).sum();
+        double over90 = rows.stream().mapToDouble(ServiceManager.ClientAging::getOver90).sum();
+        Label resumeLabel = new Label(String.format(
+                "📊 %d client(s) | Total à encaisser: %,.2f DZD | dont +90 jours: %,.2f DZD",
+                rows.size(), total, over90));
+        resumeLabel.setStyle("-fx-font-weight: bold; -fx-font-size: 12px; -fx-text-fill: #2c3e50;");
+        resumeLabel.setPadding(new Insets(0, 0, 10, 0));
 
-            // Filtre type de service
-            if (selectedType != null && !selectedType.equals("Tous les services")) {
-                if (!service.getType().equals(selectedType))
-                    return false;
+        VBox content = new VBox(8, resumeLabel, agingTable);
+        content.setPadding(new Insets(10));
+        content.setPrefSize(760, 420);
+        dialog.getDialogPane().setContent(content);
+
+        // Export without closing the dialog
+        Button exportButton = (Button) dialog.getDialogPane().lookupButton(exportButtonType);
+        exportButton.setDisable(rows.isEmpty());
+        exportButton.addEventFilter(javafx.event.ActionEvent.ACTION, event -> {
+            event.consume();
+            exportAgingReport(rows, exportButton);
+        });
+
+        dialog.showAndWait();
+    }
+
+    private TableColumn<ServiceManager.ClientAging, Double> agingAmountColumn(
+            String title, ToDoubleFunction<ServiceManager.ClientAging> amount, String color) {
+        TableColumn<ServiceManager.ClientAging, Double> col = new TableColumn<>(title);
+        col.setCellValueFactory(data -> new SimpleObjectProperty<>(amount.applyAsDouble(data.getValue())));
+        col.setCellFactory(c -> new TableCell<>() {
+            @Override
+            protected void updateItem(Double item, boolean empty) {
+                super.updateItem(item, empty);
+                if (empty || item == null) {
+                    setText(null);
+                    setStyle("");
+                } else {
+                    setText(String.format("%,.2f", item));
+                    setStyle("-fx-alignment: CENTER-RIGHT;"
+                            + (color != null && item > 0 ? " -fx-font-weight: bold; -fx-text-fill: " + color + ";" : ""));
+                }
             }
+        });
+        col.setPrefWidth(100);
+        return col;
+    }
 
-            // Filtre statut paiement
-            if (selectedPaiement != null && !selectedPaiement.equals("Tous les statuts paiement")) {
-                if (!service.getStatutPaiement().equals(selectedPaiement))
-                    return false;
+    private void exportAgingReport(List<ServiceManager.ClientAging> rows, Button exportButton) {
+        Task<File> task = new Task<>() {
+            @Override
+            protected File call() throws Exception {
+                return pdfGenerator.generateAgingReport(rows);
+            }
+        };
+        exportButton.setDisable(true);
+        task.setOnSucceeded(e -> {
+            exportButton.setDisable(false);
+            File pdfFile = task.getValue();
+            try {
+                if (Desktop.isDesktopSupported()) {
+                    Desktop.getDesktop().open(pdfFile);
+                } else {
+                    showInfo("Fichier PDF", "Le fichier PDF a été créé : " + pdfFile.getAbsolutePath());
+                }
+            } catch (Exception ex) {
+                ex.printStackTrace();
+                showError("Erreur", "Impossible d'ouvrir la balance âgée : " + ex.getMessage());
             }
+        });
+        task.setOnFailed(e -> {
+            exportButton.setDisable(false);
+            Throwable error = task.getException();
+            error.printStackTrace();
+            showError("Erreur", "Impossible de générer la balance âgée : " + error.getMessage());
+        });
+        loadExecutor.submit(task);
+    }
+
+    // ==========================
+    // CHARGEMENT DES DONNÉES
+    // ==========================
 
-            // Filtre statut service
-            if (selectedService != null && !selectedService.equals("Tous les statuts service")) {
-                if (!service.getStatutService().equals(selectedService))
-                    return false;
+    /**
+     * First load of the window, entirely off the FX thread.
+     * Skeleton rows are shown until the totals and the first page are back.
+     * The filter lookups come from the shared repository.
+     */
+    private void loadInitialData() {
+        showSkeletonRows();
+        ServiceQuery query = buildQuery();
+        appliedQuery = query;
+        StatementCanceller canceller = new StatementCanceller();
+
+        Task<GridData> task = new Task<>() {
+            @Override
+            protected GridData call() throws Exception {
+                return fetchGrid(query, canceller);
             }
+        };
+        task.setOnSucceeded(e -> {
+            publishGrid(task.getValue());
+            buildIndex();
+        });
+        task.setOnFailed(e -> {
+            serviceTable.setItems(FXCollections.observableArrayList());
+            Throwable error = task.getException();
+            error.printStackTrace();
+            showError("Erreur", "Impossible de charger les services: " + error.getMessage());
+        });
 
-            // Filtre par date
-            if (dateFrom != null || dateTo != null) {
-                Timestamp dateCreation = service.getDateCreation();
-                if (dateCreation == null)
-                    return false;
+        startGridTask(task, canceller);
+    }
 
-                LocalDateTime serviceDate = dateCreation.toLocalDateTime();
-                LocalDate serviceLocalDate = serviceDate.toLocalDate();
+    private void loadServices() {
+        // Many rows changed (import, client renamed): the index is rebuilt,
+        // meanwhile the current filter query runs in MySQL and pages are
+        // re-fetched on demand
+        invalidateIndex();
+        applyFilters();
+    }
 
-                if (dateFrom != null && serviceLocalDate.isBefore(dateFrom)) {
-                    return false;
-                }
+    /**
+     * Load every service into a {@link ServiceIndex} in the background,
+     * unless there are more than {@link ServiceIndex#MAX_INDEXED_ROWS}
+     */
+    private void buildIndex() {
+        if (indexBuildTask != null) {
+            indexBuildTask.cancel(true);
+        }
+        final int version = indexVersion;
 
-                if (dateTo != null && serviceLocalDate.isAfter(dateTo)) {
-                    return false;
+        Task<ServiceIndex> task = new Task<>() {
+            @Override
+            protected ServiceIndex call() throws Exception {
+                if (serviceManager.loadStatistics(ServiceQuery.ALL).getServiceCount() > ServiceIndex.MAX_INDEXED_ROWS) {
+                    return null;
                 }
+                List<Service> all = new ArrayList<>();
+                serviceManager.forEachService(ServiceQuery.ALL, service -> {
+                    if (isCancelled()) {
+                        throw new CancellationException();
+                    }
+                    all.add(service);
+                });
+                return new ServiceIndex(all);
+            }
+        };
+        task.setOnSucceeded(e -> {
+            if (version != indexVersion) {
+                buildIndex(); // a row changed while loading
+            } else {
+                serviceIndex = task.getValue();
             }
+        });
+        task.setOnFailed(e -> task.getException().printStackTrace());
 
-            return true;
-        }));
+        indexBuildTask = task;
+        loadExecutor.execute(task);
+    }
+
+    private void invalidateIndex() {
+        serviceIndex = null;
+        indexVersion++;
+        buildIndex();
+    }
+
+    /**
+     * Count/totals and first page for {@code query}, fetched in parallel
+     */
+    private GridData fetchGrid(ServiceQuery query, StatementCanceller canceller) throws Exception {
+        Future<List<Service>> firstPage = loadExecutor.submit(
+                () -> serviceManager.loadServicePage(query, null, pagedServices.getPageSize(), canceller));
+        try {
+            ServiceManager.ServiceStatistics stats = serviceManager.loadStatistics(query, canceller);
+            return new GridData(query, stats, firstPage.get());
+        } finally {
+            firstPage.cancel(true);
+        }
+    }
+
+    /**
+     * Run a grid load, first aborting the previous one and its SQL
+     * statements so that only the latest result is published
+     */
+    private void startGridTask(Task<?> task, StatementCanceller canceller) {
+        cancelGridTask();
+        gridLoadTask = task;
+        gridCanceller = canceller;
+        loadExecutor.execute(task);
+    }
+
+    private void cancelGridTask() {
+        if (gridLoadTask != null) {
+            // Cancel the task first: the aborted statements then fail silently
+            gridLoadTask.cancel(true);
+            gridLoadTask = null;
+        }
+        if (gridCanceller != null) {
+            gridCanceller.cancel();
+            gridCanceller = null;
+        }
+    }
+
+    private void publishGrid(GridData grid) {
+        statistics.reset(grid.statistics);
+        pagedServices.reset(grid.query, grid.statistics.getServiceCount(), grid.firstPage);
+        serviceTable.setItems(pagedServices);
+        updateStatistics();
+    }
+
+    /**
+     * Fill the client and type filters from the shared lists (again after
+     * any change to them)
+     */
+    private void publishFilterData() {
+        updatingFilterControls = true;
+        try {
+            replaceItems(filterClientCombo, "Tous les clients", repository.getClientNames());
+            replaceItems(filterTypeCombo, "Tous les services", repository.getServiceTypeNames());
+        } finally {
+            updatingFilterControls = false;
+        }
+    }
+
+    /**
+     * Replace a filter combo's items, keeping its selection when it still exists
+     */
+    private static void replaceItems(ComboBox<String> combo, String allLabel, List<String> names) {
+        String selected = combo.getValue();
+        combo.getItems().setAll(allLabel);
+        combo.getItems().addAll(names);
+        combo.setValue(selected != null && combo.getItems().contains(selected) ? selected : allLabel);
+    }
+
+    private void showSkeletonRows() {
+        serviceTable.setItems(FXCollections.observableArrayList(
+                Collections.nCopies(SKELETON_ROWS, Service.PLACEHOLDER)));
+        statisticsPanel.resetStatistics();
+    }
+
+    /** Result of a grid query: totals plus the first page of rows */
+    private static class GridData {
+        final ServiceQuery query;
+        final ServiceManager.ServiceStatistics statistics;
+        final List<Service> firstPage;
+
+        GridData(ServiceQuery query, ServiceManager.ServiceStatistics statistics, List<Service> firstPage) {
+            this.query = query;
+            this.statistics = statistics;
+            this.firstPage = firstPage;
+        }
+    }
+
+    // ==========================
+    // FILTRES
+    // ==========================
+    /**
+     * Translate the six filter controls into a query run by MySQL
+     */
+    private ServiceQuery buildQuery() {
+        return new ServiceQuery(
+                filterValue(filterClientCombo.getValue(), "Tous les clients"),
+                filterValue(filterTypeCombo.getValue(), "Tous les services"),
+                filterValue(filterPaiementCombo.getValue(), "Tous les statuts paiement"),
+                filterValue(filterServiceCombo.getValue(), "Tous les statuts service"),
+                dateFromPicker.getValue(),
+                dateToPicker.getValue());
+    }
+
+    private static String filterValue(String value, String allLabel) {
+        return value == null || value.equals(allLabel) ? null : value;
+    }
+
+    /**
+     * Called by every filter control: evaluation waits for a short quiet
+     * window so a burst of changes (reset, typing a date) runs only once
+     */
+    private void requestFilters() {
+        if (updatingFilterControls) {
+            return;
+        }
+        filterDebounce.setOnFinished(e -> {
+            if (!buildQuery().equals(appliedQuery)) {
+                applyFilters();
+            }
+        });
+        filterDebounce.playFromStart();
+    }
+
+    /**
+     * Evaluate the current filters now. With the index ready this is a few
+     * bitmap operations on the FX thread (the index is only touched there);
+     * otherwise count, totals and first page are queried in the background.
+     */
+    private void applyFilters() {
+        filterDebounce.stop();
+        ServiceQuery query = buildQuery();
+        appliedQuery = query;
+
+        if (serviceIndex != null) {
+            // Bitmap ANDs and a date range cut, no database round trip
+            cancelGridTask();
+            BitSet selection = serviceIndex.select(query);
+            statistics.reset(serviceIndex.statistics(selection));
+            pagedServices.resetResident(query, serviceIndex.rows(selection));
+            serviceTable.setItems(pagedServices);
+            updateStatistics();
+            return;
+        }
+
+        StatementCanceller canceller = new StatementCanceller();
+        Task<GridData> task = new Task<>() {
+            @Override
+            protected GridData call() throws Exception {
+                // Count and totals only: matching rows are fetched by the grid as needed
+                return fetchGrid(query, canceller);
+            }
+        };
+        task.setOnSucceeded(e -> publishGrid(task.getValue()));
+        task.setOnFailed(e -> {
+            Throwable error = task.getException();
+            error.printStackTrace();
+            showError("Erreur", "Impossible de charger les services: " + error.getMessage());
+        });
+
+        startGridTask(task, canceller);
     }
 
     private void resetFilters() {
-        filterClientCombo.setValue("Tous les clients");
-        filterTypeCombo.setValue("Tous les services");
-        filterPaiementCombo.setValue("Tous les statuts paiement");
-        filterServiceCombo.setValue("Tous les statuts service");
-        dateFromPicker.setValue(null);
-        dateToPicker.setValue(null);
+        // Six control changes, one evaluation
+        updatingFilterControls = true;
+        try {
+            filterClientCombo.setValue("Tous les clients");
+            filterTypeCombo.setValue("Tous les services");
+            filterPaiementCombo.setValue("Tous les statuts paiement");
+            filterServiceCombo.setValue("Tous les statuts service");
+            dateFromPicker.setValue(null);
+            dateToPicker.setValue(null);
+        } finally {
+            updatingFilterControls = false;
+        }
         applyFilters();
     }
 
@@ -745,30 +1324,64 @@ public class ServiceController {
     // STATISTIQUES - NEW: Using ServiceStatisticsPanel with Progress Bar
     // ==========================
     private void updateStatistics() {
-        // Use filtered data if available, otherwise use full dataset
-        ObservableList<Service> dataToAnalyze = (filteredList != null && !filteredList.isEmpty()) ? filteredList
-                : serviceList;
-
-        // Create statistics object (calculates totals and percentages)
-        ServiceManager.ServiceStatistics stats = new ServiceManager.ServiceStatistics(dataToAnalyze);
+        // Totals of the rows matching the filters: computed by the database or
+        // the index, then adjusted by the accumulator as rows change
+        ServiceManager.ServiceStatistics stats = statistics.snapshot();
 
         // Update UI panel (includes progress bar animation)
         statisticsPanel.updateStatistics(stats);
+        statisticsPanel.refreshBreakdown();
+    }
+
+    /**
+     * Per-group totals for the breakdown section, grouped by MySQL with the
+     * filters currently applied to the grid
+     */
+    private void loadBreakdown(ServiceManager.Grouping grouping) {
+        if (breakdownLoadTask != null) {
+            breakdownLoadTask.cancel(true);
+        }
+        ServiceQuery query = appliedQuery != null ? appliedQuery : buildQuery();
+
+        Task<List<ServiceManager.GroupStatistics>> task = new Task<>() {
+            @Override
+            protected List<ServiceManager.GroupStatistics> call() throws Exception {
+                return serviceManager.loadGroupedStatistics(query, grouping);
+            }
+        };
+        task.setOnSucceeded(e -> statisticsPanel.showBreakdown(grouping, task.getValue()));
+        task.setOnFailed(e -> task.getException().printStackTrace());
+
+        breakdownLoadTask = task;
+        loadExecutor.execute(task);
     }
 
     // ==========================
     // DIALOG AJOUT SERVICE
     // ==========================
     private void showAddServiceDialog() {
-        Dialog<Boolean> dialog = new Dialog<>();
+        Dialog<Callable<Service>> dialog = new Dialog<>();
         dialog.setTitle("➕ Ajouter un Nouveau Service");
         dialog.setHeaderText("Remplissez les informations du service");
 
         ButtonType saveBtn = new ButtonType("Enregistrer", ButtonBar.ButtonData.OK_DONE);
         dialog.getDialogPane().getButtonTypes().addAll(saveBtn, ButtonType.CANCEL);
 
-        ComboBox<Client> clientBox = new ComboBox<>();
-        ComboBox<TypeService> typeBox = new ComboBox<>();
+        // Shared lists: a client or type added from this dialog (or elsewhere) appears at once
+        ComboBox<ClientController.Client> clientBox = new ComboBox<>(repository.getClients());
+        clientBox.setConverter(new StringConverter<>() {
+            @Override
+            public String toString(ClientController.Client client) {
+                return client == null ? "" : client.getNom();
+            }
+
+            @Override
+            public ClientController.Client fromString(String nom) {
+                Integer id = repository.findClientId(nom);
+                return id == null ? null : repository.getClient(id);
+            }
+        });
+        ComboBox<TypeService> typeBox = new ComboBox<>(repository.getServiceTypes());
         TextArea descField = new TextArea();
         TextField prixField = new TextField();
         TextField montantPayeField = new TextField("0");
@@ -797,12 +1410,6 @@ public class ServiceController {
                 "-fx-background-color: #2ecc71; -fx-text-fill: white; -fx-font-weight: bold; -fx-padding: 5;");
         addServiceTypeBtn.setOnAction(e -> showAddServiceTypeDialog(typeBox));
 
-        // Charger les clients
-        loadClients(clientBox);
-
-        // Charger les types de service
-        loadServiceTypes(typeBox);
-
         GridPane grid = new GridPane();
         grid.setHgap(10); // Espacement réduit
         grid.setVgap(8); // Espacement réduit
@@ -865,18 +1472,14 @@ public class ServiceController {
 
                     if (montantPaye > prix) {
                         showError("Erreur", "Le montant payé ne peut pas dépasser le prix total");
-                        return false;
+                        return null;
                     }
 
-                    boolean success = insertService(
-                            clientBox.getValue().getId(),
-                            typeBox.getValue().getId(),
-                            descField.getText().trim(),
-                            prix,
-                            montantPaye,
-                            statutServiceCombo.getValue());
-
-                    return success;
+                    int clientId = clientBox.getValue().getId();
+                    int typeId = typeBox.getValue().getId();
+                    String description = descField.getText().trim();
+                    String statutService = statutServiceCombo.getValue();
+                    return () -> insertService(clientId, typeId, description, prix, montantPaye, statutService);
 
                 } catch (NumberFormatException e) {
                     showError("Erreur", "Format de prix invalide");
@@ -884,44 +1487,23 @@ public class ServiceController {
                     showError("Erreur", "Une erreur est survenue: " + e.getMessage());
                 }
             }
-            return false;
+            return null;
         });
 
-        dialog.showAndWait().ifPresent(success -> {
-            if (success) {
-                loadServices();
-                showInfo("Succès", "✅ Service ajouté avec succès");
-            }
-        });
-    }
-
-    private void loadClients(ComboBox<Client> clientBox) {
-        clientBox.getItems().clear();
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            ResultSet rs = conn.prepareStatement(
-                    "SELECT id_client, nom FROM client ORDER BY nom").executeQuery();
-            while (rs.next()) {
-                clientBox.getItems().add(new Client(rs.getInt("id_client"), rs.getString("nom")));
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-    }
-
-    private void loadServiceTypes(ComboBox<TypeService> typeBox) {
-        typeBox.getItems().clear();
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            ResultSet rs = conn.prepareStatement(
-                    "SELECT id_type_service, nom_type FROM type_service ORDER BY nom_type").executeQuery();
-            while (rs.next()) {
-                typeBox.getItems().add(new TypeService(rs.getInt("id_type_service"), rs.getString("nom_type")));
+        dialog.showAndWait().ifPresent(insert -> runInBackground(insert, added -> {
+            if (added != null) {
+                repository.publishServiceAdded(added);
+            } else {
+                repository.publishServicesReloaded();
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+            showInfo("Succès", "✅ Service ajouté avec succès");
+        }, error -> {
+            error.printStackTrace();
+            showError("Erreur base de données", error.getMessage());
+        }));
     }
 
-    private void validateFields(Node saveButton, ComboBox<Client> clientBox,
+    private void validateFields(Node saveButton, ComboBox<ClientController.Client> clientBox,
             ComboBox<TypeService> typeBox, TextField prixField) {
         boolean valid = clientBox.getValue() != null
                 && typeBox.getValue() != null
@@ -939,87 +1521,27 @@ public class ServiceController {
         saveButton.setDisable(!valid);
     }
 
-    private boolean insertService(int clientId, int typeId, String description,
-            double prix, double montantPaye, String statutService) {
-
-        String etatPaiement = montantPaye == 0 ? "NON_PAYE" : montantPaye == prix ? "PAYE" : "PARTIELLEMENT_PAYE";
-
-        String sql = """
-                    INSERT INTO service
-                    (id_client, id_type_service, description,
-                     prix_total, montant_paye, statut_service, etat_paiement)
-                    VALUES (?, ?, ?, ?, ?, ?, ?)
-                """;
-
-        Connection conn = null;
+    /**
+     * Save a new service and read it back, on a background thread
+     *
+     * @return the new row, or null if it was saved but could not be read back
+     */
+    private Service insertService(int clientId, int typeId, String description,
+            double prix, double montantPaye, String statutService) throws SQLException {
+        // Service, initial payment and daily rollup in one transaction
+        int serviceId = serviceManager.addService(clientId, typeId, description, prix, montantPaye, statutService);
         try {
-            conn = DatabaseConnection.getConnection();
-            conn.setAutoCommit(false);
-
-            try (PreparedStatement ps = conn.prepareStatement(sql)) {
-                ps.setInt(1, clientId);
-                ps.setInt(2, typeId);
-                ps.setString(3, description);
-                ps.setDouble(4, prix);
-                ps.setDouble(5, montantPaye);
-                ps.setString(6, statutService);
-                ps.setString(7, etatPaiement);
-                ps.executeUpdate();
-            }
-
-            // Si un montant initial est payé, enregistrer le paiement
-            if (montantPaye > 0) {
-                // Récupérer l'ID du service créé
-                int serviceId;
-                try (Statement stmt = conn.createStatement();
-                        ResultSet rs = stmt.executeQuery("SELECT LAST_INSERT_ID()")) {
-                    rs.next();
-                    serviceId = rs.getInt(1);
-                }
-
-                // Enregistrer le paiement initial
-                String insertPaiementSQL = """
-                            INSERT INTO paiement_vente
-                            (id_service, montant, mode_paiement, date_paiement)
-                            VALUES (?, ?, 'Paiement initial', NOW())
-                        """;
-
-                try (PreparedStatement ps = conn.prepareStatement(insertPaiementSQL)) {
-                    ps.setInt(1, serviceId);
-                    ps.setDouble(2, montantPaye);
-                    ps.executeUpdate();
-                }
-            }
-
-            conn.commit();
-            return true;
-
+            return serviceManager.loadService(serviceId);
         } catch (SQLException e) {
-            try {
-                if (conn != null)
-                    conn.rollback();
-            } catch (SQLException ex) {
-                ex.printStackTrace();
-            }
             e.printStackTrace();
-            showError("Erreur base de données", e.getMessage());
-            return false;
-        } finally {
-            try {
-                if (conn != null) {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                }
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
+            return null;
         }
     }
 
     // ==========================
     // DIALOG AJOUT CLIENT
     // ==========================
-    private void showAddClientDialog(ComboBox<Client> clientBoxToUpdate) {
+    private void showAddClientDialog(ComboBox<ClientController.Client> clientBoxToUpdate) {
         Dialog<Boolean> dialog = new Dialog<>();
         dialog.setTitle("➕ Ajouter un Nouveau Client");
         dialog.setHeaderText("Remplissez les informations du client");
@@ -1069,20 +1591,18 @@ public class ServiceController {
         dialog.setResultConverter(btn -> {
             if (btn == saveBtn) {
                 try {
-                    boolean success = insertClient(
+                    ClientController.Client client = insertClient(
                             nomField.getText().trim(),
                             telephoneField.getText().trim(),
                             emailField.getText().trim(),
                             adresseField.getText().trim());
 
-                    if (success) {
-                        // Recharger la liste des clients
-                        loadClients(clientBoxToUpdate);
-                        // Charger également pour les filtres
-                        loadFilterData();
+                    if (client != null) {
+                        // Déjà dans la liste partagée : il suffit de le sélectionner
+                        clientBoxToUpdate.setValue(client);
                     }
 
-                    return success;
+                    return client != null;
 
                 } catch (Exception e) {
                     showError("Erreur", "Une erreur est survenue: " + e.getMessage());
@@ -1098,27 +1618,14 @@ public class ServiceController {
         });
     }
 
-    private boolean insertClient(String nom, String telephone, String email, String adresse) {
-        String sql = """
-                    INSERT INTO client (nom, telephone, email, adresse)
-                    VALUES (?, ?, ?, ?)
-                """;
-
-        try (Connection conn = DatabaseConnection.getConnection();
-                PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setString(1, nom);
-            ps.setString(2, telephone.isEmpty() ? null : telephone);
-            ps.setString(3, email.isEmpty() ? null : email);
-            ps.setString(4, adresse.isEmpty() ? null : adresse);
-
-            int rows = ps.executeUpdate();
-            return rows > 0;
+    private ClientController.Client insertClient(String nom, String telephone, String email, String adresse) {
+        try {
+            return repository.addClient(nom, telephone, email, adresse);
 
         } catch (SQLException e) {
             e.printStackTrace();
             showError("Erreur base de données", e.getMessage());
-            return false;
+            return null;
         }
     }
 
@@ -1157,16 +1664,14 @@ public class ServiceController {
         dialog.setResultConverter(btn -> {
             if (btn == saveBtn) {
                 try {
-                    boolean success = insertServiceType(nomTypeField.getText().trim());
+                    TypeService type = insertServiceType(nomTypeField.getText().trim());
 
-                    if (success) {
-                        // Recharger la liste des types de service
-                        loadServiceTypes(typeBoxToUpdate);
-                        // Charger également pour les filtres
-                        loadFilterData();
+                    if (type != null) {
+                        // Déjà dans la liste partagée : il suffit de le sélectionner
+                        typeBoxToUpdate.setValue(type);
                     }
 
-                    return success;
+                    return type != null;
 
                 } catch (Exception e) {
                     showError("Erreur", "Une erreur est survenue: " + e.getMessage());
@@ -1182,20 +1687,14 @@ public class ServiceController {
         });
     }
 
-    private boolean insertServiceType(String nomType) {
-        String sql = "INSERT INTO type_service (nom_type) VALUES (?)";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-                PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setString(1, nomType);
-            int rows = ps.executeUpdate();
-            return rows > 0;
+    private TypeService insertServiceType(String nomType) {
+        try {
+            return repository.addServiceType(nomType);
 
         } catch (SQLException e) {
             e.printStackTrace();
             showError("Erreur base de données", e.getMessage());
-            return false;
+            return null;
         }
     }
 
@@ -1203,7 +1702,7 @@ public class ServiceController {
     // MISE À JOUR PAIEMENT
     // ==========================
     private void showUpdatePaymentDialog(Service service) {
-        Dialog<Boolean> dialog = new Dialog<>();
+        Dialog<Callable<Boolean>> dialog = new Dialog<>();
         dialog.setTitle("💳 Mise à jour du Paiement");
         dialog.setHeaderText("Service #" + service.getId() + " - " + service.getClient());
 
@@ -1252,110 +1751,221 @@ public class ServiceController {
 
                     if (nouveauPaiement <= 0) {
                         showError("Erreur", "Le montant doit être positif");
-                        return false;
+                        return null;
                     }
 
                     if (modePaiement == null || modePaiement.isEmpty()) {
                         showError("Erreur", "Veuillez sélectionner un mode de paiement");
-                        return false;
+                        return null;
                     }
 
                     if (nouveauPaiement > service.getReste()) {
                         showError("Erreur", "Le montant ne peut pas dépasser le reste à payer");
-                        return false;
+                        return null;
                     }
 
-                    return updatePayment(service, nouveauPaiement, modePaiement);
+                    // Increment and new status are computed by the database from the current row
+                    return () -> serviceManager.updatePayment(service.getId(), nouveauPaiement, modePaiement);
 
                 } catch (NumberFormatException e) {
                     showError("Erreur", "Format de montant invalide");
                 }
             }
-            return false;
+            return null;
         });
 
-        dialog.showAndWait().ifPresent(success -> {
+        dialog.showAndWait().ifPresent(update -> runInBackground(update, success -> {
             if (success) {
-                loadServices();
+                refreshService(service);
                 showInfo("Succès", "✅ Paiement enregistré avec succès");
             }
-        });
-    }
-
-    private boolean updatePayment(Service service, double montant, String modePaiement) {
-        Connection conn = null;
-        try {
-            conn = DatabaseConnection.getConnection();
-            conn.setAutoCommit(false);
-
-            // 1. Calculer le nouveau montant total payé
-            double nouveauMontantPaye = service.getMontantPaye() + montant;
-
-            // 2. Déterminer le nouvel état de paiement
-            String nouvelEtatPaiement;
-            if (Math.abs(nouveauMontantPaye - service.getPrixTotal()) < 0.01) {
-                nouvelEtatPaiement = "PAYE";
-            } else if (nouveauMontantPaye > 0) {
-                nouvelEtatPaiement = "PARTIELLEMENT_PAYE";
+        }, error -> {
+            if (error instanceof IllegalArgumentException) {
+                // Another payment was recorded since the dialog opened
+                showError("Erreur", "Le montant ne peut pas dépasser le reste à payer");
             } else {
-                nouvelEtatPaiement = "NON_PAYE";
+                error.printStackTrace();
+                showError("Erreur", "Erreur lors de la mise à jour: " + error.getMessage());
             }
+        }));
+    }
 
-            // 3. Mettre à jour le service
-            String updateServiceSQL = """
-                        UPDATE service
-                        SET montant_paye = ?,
-                            etat_paiement = ?
-                        WHERE id_service = ?
-                    """;
+    // ==========================
+    // PAIEMENT GROUPÉ
+    // ==========================
+    private void setBatchMode(boolean enabled) {
+        selectCol.setVisible(enabled);
+        batchPayButton.setVisible(enabled);
+        batchPayButton.setManaged(enabled);
+        batchModeButton.setText(enabled ? "✖ Quitter le paiement groupé" : "☑ Paiement groupé");
+        if (!enabled) {
+            clearBatchSelection();
+        }
+    }
 
-            try (PreparedStatement ps = conn.prepareStatement(updateServiceSQL)) {
-                ps.setDouble(1, nouveauMontantPaye);
-                ps.setString(2, nouvelEtatPaiement);
-                ps.setInt(3, service.getId());
-                ps.executeUpdate();
-            }
+    private void toggleBatchSelection(Service service, boolean selected) {
+        if (selected) {
+            batchSelection.put(service.getId(), service);
+        } else {
+            batchSelection.remove(service.getId());
+        }
+        updateBatchPayButton();
+    }
 
-            // 4. Enregistrer le paiement dans paiement_vente
-            String insertPaiementSQL = """
-                        INSERT INTO paiement_vente
-                        (id_service, montant, mode_paiement, date_paiement)
-                        VALUES (?, ?, ?, NOW())
-                    """;
+    private void clearBatchSelection() {
+        batchSelection.clear();
+        updateBatchPayButton();
+        serviceTable.refresh();
+    }
 
-            try (PreparedStatement ps = conn.prepareStatement(insertPaiementSQL)) {
-                ps.setInt(1, service.getId());
-                ps.setDouble(2, montant);
-                ps.setString(3, modePaiement);
-                ps.executeUpdate();
-            }
+    private void updateBatchPayButton() {
+        batchPayButton.setText("💰 Encaisser la sélection (" + batchSelection.size() + ")");
+        batchPayButton.setDisable(batchSelection.isEmpty());
+    }
 
-            conn.commit();
-            return true;
+    private void showBatchPaymentDialog() {
+        if (batchSelection.isEmpty()) {
+            return;
+        }
 
-        } catch (SQLException e) {
-            try {
-                if (conn != null)
-                    conn.rollback();
-            } catch (SQLException ex) {
-                ex.printStackTrace();
+        // Rows as they are now: the defaults, the guard and the grid patch all
+        // start from the current remaining amounts (deleted ones drop out)
+        List<Integer> ids = new ArrayList<>(batchSelection.keySet());
+        Task<List<Service>> task = new Task<>() {
+            @Override
+            protected List<Service> call() throws Exception {
+                return serviceManager.loadServices(ids);
             }
-            e.printStackTrace();
-            showError("Erreur", "Erreur lors de la mise à jour: " + e.getMessage());
-            return false;
-        } finally {
-            try {
-                if (conn != null) {
-                    conn.setAutoCommit(true);
-                    conn.close();
+        };
+        batchPayButton.setDisable(true);
+        task.setOnSucceeded(e -> {
+            Map<Integer, Service> current = new LinkedHashMap<>();
+            task.getValue().forEach(service -> current.put(service.getId(), service));
+            List<Service> selected = new ArrayList<>();
+            for (Integer id : ids) {
+                Service service = current.get(id);
+                if (service != null && batchSelection.containsKey(id)) {
+                    batchSelection.put(id, service);
+                    selected.add(service);
+                } else {
+                    batchSelection.remove(id);
                 }
-            } catch (SQLException e) {
-                e.printStackTrace();
             }
+            updateBatchPayButton();
+            if (selected.isEmpty()) {
+                showInfo("Paiement groupé", "Les services sélectionnés n'existent plus.");
+                serviceTable.refresh();
+                return;
+            }
+            showBatchPaymentDialog(selected);
+        });
+        task.setOnFailed(e -> {
+            updateBatchPayButton();
+            Throwable error = task.getException();
+            error.printStackTrace();
+            showError("Erreur", "Impossible de relire les services sélectionnés: " + error.getMessage());
+        });
+        loadExecutor.execute(task);
+    }
+
+    private void showBatchPaymentDialog(List<Service> selected) {
+        Dialog<List<ServiceManager.PaymentRequest>> dialog = new Dialog<>();
+        dialog.setTitle("💳 Paiement groupé");
+        dialog.setHeaderText(selected.size() + " service(s) sélectionné(s)");
+
+        ButtonType saveBtn = new ButtonType("Enregistrer", ButtonBar.ButtonData.OK_DONE);
+        dialog.getDialogPane().getButtonTypes().addAll(saveBtn, ButtonType.CANCEL);
+
+        GridPane grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(8);
+        grid.setPadding(new Insets(15));
+
+        grid.add(new Label("Service"), 0, 0);
+        grid.add(new Label("Reste à payer"), 1, 0);
+        grid.add(new Label("Montant (DZD)"), 2, 0);
+
+        // Each row defaults to the remaining amount; clear a field to skip the service
+        List<TextField> amountFields = new ArrayList<>();
+        for (int i = 0; i < selected.size(); i++) {
+            Service service = selected.get(i);
+            TextField amountField = new TextField(service.getReste() > 0 ? String.valueOf(service.getReste()) : "");
+            amountField.setPromptText("Montant");
+            amountFields.add(amountField);
+
+            grid.add(new Label("#" + service.getId() + " - " + service.getClient()), 0, i + 1);
+            grid.add(new Label(String.format("%,.2f", service.getReste())), 1, i + 1);
+            grid.add(amountField, 2, i + 1);
         }
+
+        ComboBox<String> modePaiementBox = new ComboBox<>();
+        modePaiementBox.getItems().addAll("Espèces", "Chèque", "Virement", "Carte");
+        modePaiementBox.setValue("Chèque");
+
+        HBox modeBox = new HBox(10, new Label("Mode de paiement:"), modePaiementBox);
+        modeBox.setAlignment(Pos.CENTER_LEFT);
+
+        ScrollPane rowsPane = new ScrollPane(grid);
+        rowsPane.setFitToWidth(true);
+        rowsPane.setPrefViewportHeight(Math.min(400, 40 + selected.size() * 34));
+
+        VBox content = new VBox(10, rowsPane, new Separator(), modeBox);
+        content.setPadding(new Insets(10));
+        dialog.getDialogPane().setContent(content);
+
+        dialog.setResultConverter(btn -> {
+            if (btn != saveBtn) {
+                return null;
+            }
+            List<ServiceManager.PaymentRequest> requests = new ArrayList<>();
+            for (int i = 0; i < selected.size(); i++) {
+                Service service = selected.get(i);
+                String text = amountFields.get(i).getText().trim();
+                if (text.isEmpty()) {
+                    continue;
+                }
+                try {
+                    double montant = Double.parseDouble(text.replace(',', '.'));
+                    if (montant <= 0) {
+                        showError("Erreur", "Le montant doit être positif (service #" + service.getId() + ")");
+                        return null;
+                    }
+                    if (montant > service.getReste() + 0.01) {
+                        showError("Erreur", "Le montant ne peut pas dépasser le reste à payer (service #"
+                                + service.getId() + ")");
+                        return null;
+                    }
+                    requests.add(new ServiceManager.PaymentRequest(service.getId(), montant,
+                            modePaiementBox.getValue()));
+                } catch (NumberFormatException e) {
+                    showError("Erreur", "Format de montant invalide (service #" + service.getId() + ")");
+                    return null;
+                }
+            }
+            return requests;
+        });
+
+        dialog.showAndWait().ifPresent(requests -> {
+            if (requests.isEmpty()) {
+                return;
+            }
+            runInBackground(() -> serviceManager.recordPayments(requests), recorded -> {
+                refreshServices(selected);
+                clearBatchSelection();
+                showInfo("Succès", "✅ " + requests.size() + " paiement(s) enregistré(s) avec succès");
+            }, error -> {
+                if (error instanceof IllegalArgumentException) {
+                    // A guard rejected at least one row: nothing was recorded
+                    showError("Erreur", "Aucun paiement enregistré : " + error.getMessage());
+                } else {
+                    error.printStackTrace();
+                    showError("Erreur", "Erreur lors de l'enregistrement des paiements: " + error.getMessage());
+                }
+            });
+        });
     }
 
-    // ==========================
+        // ==========================
     // HISTORIQUE DES PAIEMENTS
     // ==========================
     private void showPaymentHistoryDialog(Service service) {
@@ -1455,7 +2065,7 @@ public class ServiceController {
     // MISE À JOUR STATUT SERVICE
     // ==========================
     private void showUpdateServiceStatusDialog(Service service) {
-        Dialog<Boolean> dialog = new Dialog<>();
+        Dialog<Callable<Boolean>> dialog = new Dialog<>();
         dialog.setTitle("🔄 Changer le Statut du Service");
         dialog.setHeaderText("Service #" + service.getId() + " - " + service.getClient());
 
@@ -1484,38 +2094,22 @@ public class ServiceController {
             if (btn == updateBtn) {
                 String newStatus = statusCombo.getValue();
                 if (newStatus == null || newStatus.equals(service.getStatutService())) {
-                    return false;
+                    return null;
                 }
-                return updateServiceStatus(service, newStatus);
+                return () -> serviceManager.updateServiceStatus(service.getId(), newStatus);
             }
-            return false;
+            return null;
         });
 
-        dialog.showAndWait().ifPresent(success -> {
+        dialog.showAndWait().ifPresent(update -> runInBackground(update, success -> {
             if (success) {
-                loadServices();
+                refreshService(service);
                 showInfo("Succès", "✅ Statut du service mis à jour avec succès");
             }
-        });
-    }
-
-    private boolean updateServiceStatus(Service service, String newStatus) {
-        String sql = "UPDATE service SET statut_service = ? WHERE id_service = ?";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-                PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setString(1, newStatus);
-            ps.setInt(2, service.getId());
-
-            int rows = ps.executeUpdate();
-            return rows > 0;
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-            showError("Erreur", "Impossible de mettre à jour le statut: " + e.getMessage());
-            return false;
-        }
+        }, error -> {
+            error.printStackTrace();
+            showError("Erreur", "Impossible de mettre à jour le statut: " + error.getMessage());
+        }));
     }
 
     // ==========================
@@ -1540,50 +2134,136 @@ public class ServiceController {
     }
 
     private void deleteService(Service service) {
-        Connection conn = null;
-        try {
-            conn = DatabaseConnection.getConnection();
-            conn.setAutoCommit(false);
-
-            // 1. Supprimer d'abord les paiements associés
-            String deletePaiementsSQL = "DELETE FROM paiement_vente WHERE id_service = ?";
-            try (PreparedStatement ps = conn.prepareStatement(deletePaiementsSQL)) {
-                ps.setInt(1, service.getId());
-                ps.executeUpdate();
+        runInBackground(() -> serviceManager.deleteService(service.getId()), deleted -> {
+            if (deleted) {
+                repository.publishServiceChange(service, null);
+                showInfo("Succès", "✅ Service et paiements associés supprimés avec succès");
             }
+        }, error -> {
+            error.printStackTrace();
+            showError("Erreur", "Impossible de supprimer le service: " + error.getMessage());
+        });
+    }
 
-            // 2. Supprimer le service
-            String deleteServiceSQL = "DELETE FROM service WHERE id_service = ?";
-            try (PreparedStatement ps = conn.prepareStatement(deleteServiceSQL)) {
-                ps.setInt(1, service.getId());
-                int rows = ps.executeUpdate();
-
-                if (rows > 0) {
-                    conn.commit();
+    /**
+     * Re-read one service after a mutation and patch it into the grid
+     */
+    private void refreshService(Service before) {
+        runInBackground(() -> serviceManager.loadService(before.getId()),
+                after -> repository.publishServiceChange(before, after),
+                error -> {
+                    error.printStackTrace();
                     loadServices();
-                    showInfo("Succès", "✅ Service et paiements associés supprimés avec succès");
-                    return;
-                }
+                });
+    }
+
+    /**
+     * Re-read several services in one query after a grouped mutation
+     */
+    private void refreshServices(List<Service> before) {
+        List<Integer> ids = new ArrayList<>();
+        before.forEach(service -> ids.add(service.getId()));
+        runInBackground(() -> serviceManager.loadServices(ids), rows -> {
+            Map<Integer, Service> current = new LinkedHashMap<>();
+            rows.forEach(service -> current.put(service.getId(), service));
+            for (Service service : before) {
+                repository.publishServiceChange(service, current.get(service.getId()));
             }
+        }, error -> {
+            error.printStackTrace();
+            loadServices();
+        });
+    }
 
-        } catch (SQLException e) {
-            try {
-                if (conn != null)
-                    conn.rollback();
-            } catch (SQLException ex) {
-                ex.printStackTrace();
+    /**
+     * Run a database call on {@link #loadExecutor}, then continue with its
+     * result (or its error) on the FX thread, so the window never waits on MySQL
+     */
+    private <T> void runInBackground(Callable<T> work, Consumer<T> onSucceeded, Consumer<Throwable> onFailed) {
+        Task<T> task = new Task<>() {
+            @Override
+            protected T call() throws Exception {
+                return work.call();
             }
-            e.printStackTrace();
-            showError("Erreur", "Impossible de supprimer le service: " + e.getMessage());
-        } finally {
-            try {
-                if (conn != null) {
-                    conn.setAutoCommit(true);
-                    conn.close();
+        };
+        task.setOnSucceeded(e -> onSucceeded.accept(task.getValue()));
+        task.setOnFailed(e -> onFailed.accept(task.getException()));
+        loadExecutor.execute(task);
+    }
+
+    /**
+     * A service changed, in this window or another one
+     */
+    private void onServiceChanged(AppRepository.ServiceChange change) {
+        if (change.isReload()) {
+            loadServices();
+        } else {
+            keepBatchSelectionCurrent(change.getBefore(), change.getAfter());
+            patchService(change.getBefore(), change.getAfter());
+        }
+    }
+
+    /**
+     * Ticked rows follow their changes so the batch dialog never starts from stale amounts
+     */
+    private void keepBatchSelectionCurrent(Service before, Service after) {
+        if (before == null || !batchSelection.containsKey(before.getId())) {
+            return;
+        }
+        if (after == null) {
+            batchSelection.remove(before.getId());
+            updateBatchPayButton();
+        } else {
+            batchSelection.computeIfPresent(after.getId(), (id, ticked) -> after);
+        }
+    }
+
+    /**
+     * Update a single row and the totals by its delta instead of reloading
+     *
+     * @param before the row as currently shown, or null if it was just added
+     * @param after the row as it is now in the database, or null if deleted
+     */
+    private void patchService(Service before, Service after) {
+        indexVersion++;
+        if (serviceIndex != null) {
+            if (after == null) {
+                serviceIndex.remove(before.getId());
+            } else if (before == null) {
+                serviceIndex.add(after);
+            } else if (!serviceIndex.update(after)) {
+                invalidateIndex();
+            }
+        }
+
+        ServiceQuery query = pagedServices.getQuery();
+        boolean shown = before != null && query.matches(before);
+        Service visible = after != null && query.matches(after) ? after : null;
+
+        if (!shown) {
+            // Outside the filters (e.g. a batch selection kept across filters):
+            // neither in the grid nor in its totals, unless it now matches.
+            // A new row goes in at its place when the rows around it are loaded.
+            if (visible != null) {
+                if (before == null && pagedServices.insertService(visible)) {
+                    statistics.apply(null, visible);
+                    updateStatistics();
+                } else {
+                    applyFilters();
                 }
-            } catch (SQLException e) {
-                e.printStackTrace();
             }
+            return;
+        }
+
+        // The accumulator follows the grid's change; rows of evicted pages are applied here
+        if (visible != null) {
+            if (!pagedServices.replaceService(visible)) {
+                statistics.apply(before, visible);
+                updateStatistics();
+            }
+        } else if (!pagedServices.removeService(before.getId())) {
+            // Position unknown (evicted page): the grid is counted again
+            applyFilters();
         }
     }
 
@@ -1610,6 +2290,10 @@ public class ServiceController {
     // MODELS
     // ==========================
     public static class Service {
+        /** Stand-in for a row that is still being fetched */
+        public static final Service PLACEHOLDER = new Service(0, "Chargement…", "", null,
+                0, 0, 0, null, null, null);
+
         private final int id;
         private final String client;
         private final String type;
@@ -1681,24 +2365,9 @@ public class ServiceController {
                 return "";
             return DATE_FORMATTER.format(dateCreation.toLocalDateTime());
         }
-    }
-
-    public static class Client {
-        private final int id;
-        private final String nom;
-
-        public Client(int id, String nom) {
-            this.id = id;
-            this.nom = nom;
-        }
 
-        public int getId() {
-            return id;
-        }
-
-        @Override
-        public String toString() {
-            return nom;
+        public boolean isPlaceholder() {
+            return this == PLACEHOLDER;
         }
     }
 
@@ -1715,6 +2384,10 @@ public class ServiceController {
             return id;
         }
 
+        public String getNom() {
+            return nom;
+        }
+
         @Override
         public String toString() {
             return nom;
@@ -1732,6 +2405,10 @@ public class ServiceController {
             this.modePaiement = modePaiement;
         }
 
+        public Timestamp getDate() {
+            return date;
+        }
+
         public String getDateFormatted() {
             if (date == null)
                 return "";
@@ -0,0 +1,130 @@
+package com.advertising.controller;
+
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Navigation between the application's pages
+ *
+ * Each page's controller and scene are created on first use and kept:
+ * showing a page again only swaps the scene and calls
+ * {@link ManagedView#onShow()}. Pages opened in their own window (clients,
+ * suppliers, services from the dashboard) get one window each; opening an
+ * already open page brings its window to the front instead of opening a
+ * duplicate, and closing it only hides it.
+ */
+public final class WindowManager {
+
+    public enum Page {
+        LOGIN("Advertising Company Management System", LoginController::new, 1000, 700, false),
+        DASHBOARD("Advertising Company Management System", DashboardController::new, 1000, 700, false),
+        SERVICES("📦 Gestion des Services", ServiceController::new, 1400, 900, true),
+        CLIENTS("👥 Gestion des Clients", ClientController::new, 1200, 800, true),
+        SUPPLIERS("🏭 Gestion des Fournisseurs", FournisseurController::new, 1200, 800, true);
+
+        private final String title;
+        private final Supplier<ManagedView> factory;
+        private final int width;
+        private final int height;
+        private final boolean maximized;
+
+        Page(String title, Supplier<ManagedView> factory, int width, int height, boolean maximized) {
+            this.title = title;
+            this.factory = factory;
+            this.width = width;
+            this.height = height;
+            this.maximized = maximized;
+        }
+    }
+
+    private static Stage primaryStage;
+    private static final Map<Page, ManagedView> controllers = new EnumMap<>(Page.class);
+    private static final Map<Page, Scene> scenes = new EnumMap<>(Page.class);
+    private static final Map<Page, Stage> windows = new EnumMap<>(Page.class);
+
+    private WindowManager() {
+    }
+
+    public static void init(Stage stage) {
+        primaryStage = stage;
+    }
+
+    /**
+     * Show a page in the main window
+     */
+    public static void showInMainWindow(Page page) {
+        Scene scene = scene(page);
+
+        // The page was open in its own window: move it back to the main one
+        Stage window = windows.remove(page);
+        if (window != null) {
+            window.hide();
+            window.setScene(null);
+        }
+
+        if (primaryStage.getScene() != scene) {
+            primaryStage.setScene(scene);
+        }
+        primaryStage.setTitle(page.title);
+        // Les grandes pages sont maximisées et redimensionnables, les autres ont une taille fixe
+        primaryStage.setResizable(page.maximized);
+        primaryStage.setMaximized(page.maximized);
+        if (!page.maximized) {
+            primaryStage.sizeToScene();
+        }
+        controllers.get(page).onShow();
+    }
+
+    /**
+     * Show a page in its own window, reusing it if it was already opened
+     */
+    public static void openWindow(Page page) {
+        Scene scene = scene(page);
+        ManagedView controller = controllers.get(page);
+
+        if (scene.getWindow() == primaryStage) {
+            primaryStage.toFront();
+            controller.onShow();
+            return;
+        }
+
+        Stage window = windows.get(page);
+        if (window == null) {
+            window = new Stage();
+            window.setTitle(page.title);
+            window.setScene(scene);
+            // Permettre le redimensionnement, fenêtre maximisée
+            window.setResizable(true);
+            window.setMaximized(true);
+            // La croix masque la fenêtre : elle est réaffichée telle quelle
+            windows.put(page, window);
+        }
+
+        controller.onShow();
+        if (window.isShowing()) {
+            window.setIconified(false);
+            window.toFront();
+        } else {
+            window.show();
+        }
+    }
+
+    /**
+     * Hide every secondary window (logout); they stay cached
+     */
+    public static void closeWindows() {
+        windows.values().forEach(Stage::hide);
+    }
+
+    private static Scene scene(Page page) {
+        return scenes.computeIfAbsent(page, p -> {
+            ManagedView controller = p.factory.get();
+            controllers.put(p, controller);
+            return new Scene(controller.getView(), p.width, p.height);
+        });
+    }
+}
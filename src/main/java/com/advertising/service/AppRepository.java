@@ -0,0 +1,508 @@
+package com.advertising.service;
+
+import com.advertising.controller.ClientController.Client;
+import com.advertising.controller.FournisseurController.Fournisseur;
+import com.advertising.controller.ServiceController.Service;
+import com.advertising.controller.ServiceController.TypeService;
+import com.advertising.util.DatabaseConnection;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.lang.ref.WeakReference;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * App-wide data shared by every window
+ *
+ * Clients, suppliers and service types are held once, in observable lists
+ * the windows display directly (wrap them in a FilteredList / SortedList for
+ * searching). They are loaded in the background on first use and only
+ * reloaded on {@link #refresh()}; every insert, update or delete made
+ * through this class is applied to the lists, so all open windows see it.
+ *
+ * Clients and types also have id / name lookups and sorted name lists
+ * ({@link ReferenceLookup}) kept in step with the lists: building a dialog
+ * or a filter bar never queries MySQL.
+ *
+ * Services are too many to hold here: the service grid pages them from
+ * MySQL. Their mutations are broadcast instead ({@link #publishServiceChange},
+ * {@link #publishServiceAdded}, {@link #publishServicesReloaded}) to the
+ * listeners of every window, which patch their own pages. The client
+ * service counts follow.
+ *
+ * Lists and listeners belong to the FX thread: call the mutation methods
+ * from it.
+ */
+public class AppRepository {
+
+    private static AppRepository instance;
+
+    private final ObservableList<Client> clients = FXCollections.observableArrayList();
+    private final ObservableList<Fournisseur> suppliers = FXCollections.observableArrayList();
+    private final ObservableList<TypeService> serviceTypes = FXCollections.observableArrayList();
+
+    private final ObservableList<Client> clientsView = FXCollections.unmodifiableObservableList(clients);
+    private final ObservableList<Fournisseur> suppliersView = FXCollections.unmodifiableObservableList(suppliers);
+    private final ObservableList<TypeService> serviceTypesView = FXCollections.unmodifiableObservableList(serviceTypes);
+
+    // Id / name lookups and sorted names, updated with the lists
+    private final ReferenceLookup<Client> clientLookup =
+            new ReferenceLookup<>(clients, Client::getId, Client::getNom);
+    private final ReferenceLookup<TypeService> typeLookup =
+            new ReferenceLookup<>(serviceTypes, TypeService::getId, TypeService::getNom);
+
+    // Held weakly: a closed window's listener goes away with its controller
+    private final List<WeakReference<Consumer<ServiceChange>>> serviceListeners = new ArrayList<>();
+
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "repository-loader");
+        t.setDaemon(true);
+        return t;
+    });
+    private boolean loaded = false;
+
+    private AppRepository() {
+    }
+
+    public static synchronized AppRepository getInstance() {
+        if (instance == null) {
+            instance = new AppRepository();
+        }
+        return instance;
+    }
+
+    // ============ SHARED LISTS ============
+
+    /**
+     * Every client, by name, with its number of services
+     */
+    public ObservableList<Client> getClients() {
+        ensureLoaded();
+        return clientsView;
+    }
+
+    public ObservableList<Fournisseur> getSuppliers() {
+        ensureLoaded();
+        return suppliersView;
+    }
+
+    public ObservableList<TypeService> getServiceTypes() {
+        ensureLoaded();
+        return serviceTypesView;
+    }
+
+    /**
+     * Client names, sorted, for the filter bars
+     */
+    public ObservableList<String> getClientNames() {
+        ensureLoaded();
+        return clientLookup.getNames();
+    }
+
+    public ObservableList<String> getServiceTypeNames() {
+        ensureLoaded();
+        return typeLookup.getNames();
+    }
+
+    /**
+     * @return the client with this id, or null if unknown
+     */
+    public Client getClient(int clientId) {
+        return clientLookup.get(clientId);
+    }
+
+    /**
+     * @return the id of the client with this name (ignoring case), or null
+     */
+    public Integer findClientId(String name) {
+        return clientLookup.findId(name);
+    }
+
+    public TypeService getServiceType(int typeId) {
+        return typeLookup.get(typeId);
+    }
+
+    public Integer findServiceTypeId(String name) {
+        return typeLookup.findId(name);
+    }
+
+    /**
+     * Start the first load if nothing was loaded yet
+     */
+    public void ensureLoaded() {
+        if (!loaded) {
+            refresh();
+        }
+    }
+
+    /**
+     * Reload the three lists in the background (changes made outside the
+     * application); they are replaced on the FX thread
+     */
+    public void refresh() {
+        loaded = true;
+        loader.execute(() -> {
+            try {
+                List<Client> newClients = loadClients();
+                List<Fournisseur> newSuppliers = loadSuppliers();
+                List<TypeService> newTypes = loadServiceTypes();
+                Platform.runLater(() -> {
+                    clients.setAll(newClients);
+                    suppliers.setAll(newSuppliers);
+                    serviceTypes.setAll(newTypes);
+                });
+            } catch (SQLException e) {
+                e.printStackTrace();
+                Platform.runLater(() -> loaded = false); // retried on next access
+            }
+        });
+    }
+
+    // ============ CLIENTS ============
+
+    public Client addClient(String nom, String telephone, String email, String adresse) throws SQLException {
+        String sql = "INSERT INTO client (nom, telephone, email, adresse) VALUES (?, ?, ?, ?)";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+
+            ps.setString(1, nom);
+            ps.setString(2, emptyToNull(telephone));
+            ps.setString(3, emptyToNull(email));
+            ps.setString(4, emptyToNull(adresse));
+            ps.executeUpdate();
+
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                if (!keys.next()) {
+                    throw new SQLException("Failed to get client ID");
+                }
+                Client client = new Client(keys.getInt(1), nom, emptyToNull(telephone),
+                        emptyToNull(email), emptyToNull(adresse), 0);
+                insertSorted(clients, client, CLIENT_ORDER);
+                return client;
+            }
+        }
+    }
+
+    /**
+     * @return false if the client no longer exists
+     */
+    public boolean updateClient(Client client) throws SQLException {
+        String sql = "UPDATE client SET nom = ?, telephone = ?, email = ?, adresse = ? WHERE id_client = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setString(1, client.getNom());
+            ps.setString(2, client.getTelephone());
+            ps.setString(3, client.getEmail());
+            ps.setString(4, client.getAdresse());
+            ps.setInt(5, client.getId());
+
+            if (ps.executeUpdate() == 0) {
+                return false;
+            }
+        }
+        boolean renamed = clients.stream()
+                .anyMatch(c -> c.getId() == client.getId() && !c.getNom().equals(client.getNom()));
+        clients.removeIf(c -> c.getId() == client.getId());
+        insertSorted(clients, client, CLIENT_ORDER);
+        if (renamed) {
+            // Client names are shown on the service rows
+            fireServiceChange(ServiceChange.reloaded());
+        }
+        return true;
+    }
+
+    public boolean deleteClient(int clientId) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement("DELETE FROM client WHERE id_client = ?")) {
+
+            ps.setInt(1, clientId);
+            if (ps.executeUpdate() == 0) {
+                return false;
+            }
+        }
+        clients.removeIf(c -> c.getId() == clientId);
+        return true;
+    }
+
+    // ============ FOURNISSEURS ============
+
+    public Fournisseur addSupplier(String nom, String telephone, String email, String adresse) throws SQLException {
+        String sql = "INSERT INTO fournisseur (nom, telephone, email, adresse) VALUES (?, ?, ?, ?)";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+
+            ps.setString(1, nom);
+            ps.setString(2, telephone);
+            ps.setString(3, email);
+            ps.setString(4, adresse);
+            ps.executeUpdate();
+
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                if (!keys.next()) {
+                    throw new SQLException("Failed to get supplier ID");
+                }
+                Fournisseur supplier = new Fournisseur(keys.getInt(1), nom, telephone, email, adresse);
+                insertSorted(suppliers, supplier, SUPPLIER_ORDER);
+                return supplier;
+            }
+        }
+    }
+
+    public boolean updateSupplier(Fournisseur supplier) throws SQLException {
+        String sql = "UPDATE fournisseur SET nom = ?, telephone = ?, email = ?, adresse = ? WHERE id_fournisseur = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setString(1, supplier.getNom());
+            ps.setString(2, supplier.getTelephone());
+            ps.setString(3, supplier.getEmail());
+            ps.setString(4, supplier.getAdresse());
+            ps.setInt(5, supplier.getId());
+
+            if (ps.executeUpdate() == 0) {
+                return false;
+            }
+        }
+        suppliers.removeIf(s -> s.getId() == supplier.getId());
+        insertSorted(suppliers, supplier, SUPPLIER_ORDER);
+        return true;
+    }
+
+    public boolean deleteSupplier(int supplierId) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement("DELETE FROM fournisseur WHERE id_fournisseur = ?")) {
+
+            ps.setInt(1, supplierId);
+            if (ps.executeUpdate() == 0) {
+                return false;
+            }
+        }
+        suppliers.removeIf(s -> s.getId() == supplierId);
+        return true;
+    }
+
+    // ============ TYPES DE SERVICE ============
+
+    public TypeService addServiceType(String nomType) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(
+                     "INSERT INTO type_service (nom_type) VALUES (?)", Statement.RETURN_GENERATED_KEYS)) {
+
+            ps.setString(1, nomType);
+            ps.executeUpdate();
+
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                if (!keys.next()) {
+                    throw new SQLException("Failed to get service type ID");
+                }
+                TypeService type = new TypeService(keys.getInt(1), nomType);
+                insertSorted(serviceTypes, type, TYPE_ORDER);
+                return type;
+            }
+        }
+    }
+
+    // ============ SERVICES ============
+
+    /**
+     * Register a listener for service mutations, called on the FX thread.
+     * It is held weakly: the caller keeps a reference as long as it listens.
+     */
+    public void addServiceListener(Consumer<ServiceChange> listener) {
+        serviceListeners.add(new WeakReference<>(listener));
+    }
+
+    public void removeServiceListener(Consumer<ServiceChange> listener) {
+        serviceListeners.removeIf(ref -> ref.get() == null || ref.get() == listener);
+    }
+
+    /**
+     * A service was modified or deleted in the database
+     *
+     * @param before the row as it was shown
+     * @param after the row as it is now, or null if it was deleted
+     */
+    public void publishServiceChange(Service before, Service after) {
+        if (after == null) {
+            adjustServiceCount(before.getClient(), -1);
+        }
+        fireServiceChange(new ServiceChange(before, after));
+    }
+
+    /**
+     * A service was created: windows add it to their grid
+     *
+     * @param added the new row, as read back from the database
+     */
+    public void publishServiceAdded(Service added) {
+        adjustServiceCount(added.getClient(), +1);
+        fireServiceChange(new ServiceChange(null, added));
+    }
+
+    /**
+     * Many services were added (import): windows reload their grid
+     */
+    public void publishServicesReloaded() {
+        refreshServiceCounts();
+        fireServiceChange(ServiceChange.reloaded());
+    }
+
+    /**
+     * Reload the clients only, for their service counts after an import
+     * touching many of them (suppliers and types did not change)
+     */
+    private void refreshServiceCounts() {
+        loader.execute(() -> {
+            try {
+                List<Client> newClients = loadClients();
+                Platform.runLater(() -> clients.setAll(newClients));
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    private void fireServiceChange(ServiceChange change) {
+        serviceListeners.removeIf(ref -> ref.get() == null);
+        for (WeakReference<Consumer<ServiceChange>> ref : new ArrayList<>(serviceListeners)) {
+            Consumer<ServiceChange> listener = ref.get();
+            if (listener != null) {
+                listener.accept(change);
+            }
+        }
+    }
+
+    private void adjustServiceCount(String clientName, int delta) {
+        for (int i = 0; i < clients.size(); i++) {
+            Client c = clients.get(i);
+            if (c.getNom().equals(clientName)) {
+                clients.set(i, new Client(c.getId(), c.getNom(), c.getTelephone(), c.getEmail(),
+                        c.getAdresse(), Math.max(0, c.getNombreServices() + delta)));
+                return;
+            }
+        }
+    }
+
+    // ============ LOADING ============
+
+    private static final Comparator<Client> CLIENT_ORDER =
+            Comparator.comparing(Client::getNom, String.CASE_INSENSITIVE_ORDER);
+    private static final Comparator<Fournisseur> SUPPLIER_ORDER =
+            Comparator.comparing(Fournisseur::getNom, String.CASE_INSENSITIVE_ORDER);
+    private static final Comparator<TypeService> TYPE_ORDER =
+            Comparator.comparing(TypeService::getNom, String.CASE_INSENSITIVE_ORDER);
+
+    private static List<Client> loadClients() throws SQLException {
+        String sql = """
+                SELECT c.id_client, c.nom, c.telephone, c.email, c.adresse,
+                       COUNT(s.id_service) AS nombre_services
+                FROM client c
+                LEFT JOIN service s ON c.id_client = s.id_client
+                GROUP BY c.id_client, c.nom, c.telephone, c.email, c.adresse
+                ORDER BY c.nom
+                """;
+
+        List<Client> result = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                result.add(new Client(
+                        rs.getInt("id_client"),
+                        rs.getString("nom"),
+                        rs.getString("telephone"),
+                        rs.getString("email"),
+                        rs.getString("adresse"),
+                        rs.getInt("nombre_services")));
+            }
+        }
+        return result;
+    }
+
+    private static List<Fournisseur> loadSuppliers() throws SQLException {
+        String sql = "SELECT id_fournisseur, nom, telephone, email, adresse FROM fournisseur ORDER BY nom";
+
+        List<Fournisseur> result = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                result.add(new Fournisseur(
+                        rs.getInt("id_fournisseur"),
+                        rs.getString("nom"),
+                        rs.getString("telephone"),
+                        rs.getString("email"),
+                        rs.getString("adresse")));
+            }
+        }
+        return result;
+    }
+
+    private static List<TypeService> loadServiceTypes() throws SQLException {
+        String sql = "SELECT id_type_service, nom_type FROM type_service ORDER BY nom_type";
+
+        List<TypeService> result = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                result.add(new TypeService(rs.getInt("id_type_service"), rs.getString("nom_type")));
+            }
+        }
+        return result;
+    }
+
+    private static <T> void insertSorted(ObservableList<T> list, T item, Comparator<T> order) {
+        int i = 0;
+        while (i < list.size() && order.compare(list.get(i), item) <= 0) {
+            i++;
+        }
+        list.add(i, item);
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    // ============ DATA CLASSES ============
+
+    /**
+     * One service mutation, see {@link #addServiceListener}
+     */
+    public static class ServiceChange {
+        private final Service before;
+        private final Service after;
+
+        ServiceChange(Service before, Service after) {
+            this.before = before;
+            this.after = after;
+        }
+
+        static ServiceChange reloaded() {
+            return new ServiceChange(null, null);
+        }
+
+        /** Many rows changed at once: reload instead of patching */
+        public boolean isReload() { return before == null && after == null; }
+        /** null if the service was just added */
+        public Service getBefore() { return before; }
+        /** null if the service was deleted */
+        public Service getAfter() { return after; }
+    }
+}
@@ -0,0 +1,634 @@
+package com.advertising.service;
+
+import com.advertising.util.DatabaseConnection;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Streaming CSV import of clients and services (spreadsheet migration)
+ *
+ * The file is read one record at a time and rows are inserted in JDBC
+ * batches of {@code batchSize}, so memory depends on the batch size, not on
+ * the file size. With rewriteBatchedStatements=true (see database.properties)
+ * each batch is sent as a single multi-row INSERT.
+ *
+ * Each batch is committed on its own. A row that fails validation, or that
+ * the database rejects, is reported in the {@link ImportResult} and the
+ * import goes on with the next rows.
+ *
+ * Expected columns (first line is the header, "," or ";" separated, any order):
+ * - clients: nom, telephone, email, adresse
+ * - services: client, type, description, prix_total, montant_paye,
+ *   statut_service, date_creation (optional: yyyy-MM-dd, dd/MM/yyyy,
+ *   or either followed by HH:mm)
+ *
+ * Services reference clients and types by name; names are resolved through
+ * an in-memory lookup loaded once per import, so clients must exist (import
+ * the client file first).
+ */
+public class CsvImporter {
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    /** Errors kept in the result; further errors are only counted */
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private static final Set<String> SERVICE_STATUSES = Set.of("EN_ATTENTE", "EN_COURS", "TERMINE");
+
+    private static final DateTimeFormatter[] DATE_TIME_FORMATS = {
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm[:ss]"),
+            DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm[:ss]")
+    };
+    private static final DateTimeFormatter[] DATE_FORMATS = {
+            DateTimeFormatter.ofPattern("yyyy-MM-dd"),
+            DateTimeFormatter.ofPattern("dd/MM/yyyy")
+    };
+
+    private static final String INSERT_CLIENT_SQL = """
+            INSERT INTO client (nom, telephone, email, adresse)
+            VALUES (?, ?, ?, ?)
+            """;
+
+    private static final String INSERT_SERVICE_SQL = """
+            INSERT INTO service
+            (id_client, id_type_service, description, prix_total, montant_paye,
+             statut_service, etat_paiement, date_creation)
+            VALUES (?, ?, ?, ?, ?, ?, ?, COALESCE(?, NOW()))
+            """;
+
+    private static final String INSERT_PAYMENT_SQL = """
+            INSERT INTO paiement_vente
+            (id_service, montant, mode_paiement, date_paiement)
+            VALUES (?, ?, 'Paiement initial', COALESCE(?, NOW()))
+            """;
+
+    private final int batchSize;
+
+    public CsvImporter() {
+        this(DEFAULT_BATCH_SIZE);
+    }
+
+    public CsvImporter(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.batchSize = batchSize;
+    }
+
+    // ============ CLIENTS ============
+
+    public ImportResult importClients(Path file) throws IOException, SQLException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return importClients(reader);
+        }
+    }
+
+    public ImportResult importClients(Reader source) throws IOException, SQLException {
+        ImportResult result = new ImportResult();
+        CsvReader csv = new CsvReader(source);
+        Map<String, Integer> columns = csv.readHeader();
+        requireColumns(columns, "nom");
+
+        List<ClientRow> batch = new ArrayList<>(batchSize);
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(INSERT_CLIENT_SQL)) {
+                List<String> record;
+                while ((record = csv.readRecord()) != null) {
+                    int line = csv.getRecordLine();
+                    String nom = field(record, columns, "nom");
+                    if (nom == null) {
+                        result.addError(line, "Nom du client manquant");
+                        continue;
+                    }
+                    batch.add(new ClientRow(line, nom,
+                            field(record, columns, "telephone"),
+                            field(record, columns, "email"),
+                            field(record, columns, "adresse")));
+
+                    if (batch.size() == batchSize) {
+                        flushClients(conn, ps, batch, result);
+                    }
+                }
+                flushClients(conn, ps, batch, result);
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+        return result;
+    }
+
+    private void flushClients(Connection conn, PreparedStatement ps, List<ClientRow> batch,
+                              ImportResult result) throws SQLException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            for (ClientRow row : batch) {
+                bindClient(ps, row);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            conn.commit();
+            result.inserted += batch.size();
+        } catch (BatchUpdateException e) {
+            // A multi-row INSERT fails as a whole: retry row by row to isolate the bad ones
+            conn.rollback();
+            ps.clearBatch();
+            for (ClientRow row : batch) {
+                try {
+                    bindClient(ps, row);
+                    ps.executeUpdate();
+                    conn.commit();
+                    result.inserted++;
+                } catch (SQLException rowError) {
+                    conn.rollback();
+                    result.addError(row.line, rowError.getMessage());
+                }
+            }
+        }
+        batch.clear();
+    }
+
+    private static void bindClient(PreparedStatement ps, ClientRow row) throws SQLException {
+        ps.setString(1, row.nom);
+        ps.setString(2, row.telephone);
+        ps.setString(3, row.email);
+        ps.setString(4, row.adresse);
+    }
+
+    // ============ SERVICES ============
+
+    public ImportResult importServices(Path file) throws IOException, SQLException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return importServices(reader);
+        }
+    }
+
+    public ImportResult importServices(Reader source) throws IOException, SQLException {
+        ImportResult result = new ImportResult();
+        CsvReader csv = new CsvReader(source);
+        Map<String, Integer> columns = csv.readHeader();
+        requireColumns(columns, "client", "type", "prix_total");
+
+        List<ServiceRow> batch = new ArrayList<>(batchSize);
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            Map<String, Integer> clientIds = loadLookup(conn, "SELECT id_client, nom FROM client ORDER BY id_client");
+            Map<String, Integer> typeIds = loadLookup(conn,
+                    "SELECT id_type_service, nom_type FROM type_service ORDER BY id_type_service");
+
+            conn.setAutoCommit(false);
+            try (PreparedStatement servicePs = conn.prepareStatement(INSERT_SERVICE_SQL, Statement.RETURN_GENERATED_KEYS);
+                 PreparedStatement paymentPs = conn.prepareStatement(INSERT_PAYMENT_SQL)) {
+
+                List<String> record;
+                while ((record = csv.readRecord()) != null) {
+                    int line = csv.getRecordLine();
+                    try {
+                        batch.add(parseService(line, record, columns, clientIds, typeIds));
+                    } catch (IllegalArgumentException e) {
+                        result.addError(line, e.getMessage());
+                        continue;
+                    }
+
+                    if (batch.size() == batchSize) {
+                        flushServices(conn, servicePs, paymentPs, batch, result);
+                    }
+                }
+                flushServices(conn, servicePs, paymentPs, batch, result);
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+        if (result.inserted > 0) {
+            ServiceManager.amountsChanged();
+        }
+        return result;
+    }
+
+    private ServiceRow parseService(int line, List<String> record, Map<String, Integer> columns,
+                                    Map<String, Integer> clientIds, Map<String, Integer> typeIds) {
+        String clientName = field(record, columns, "client");
+        String typeName = field(record, columns, "type");
+        if (clientName == null || typeName == null) {
+            throw new IllegalArgumentException("Client ou type de service manquant");
+        }
+
+        Integer clientId = clientIds.get(normalize(clientName));
+        if (clientId == null) {
+            throw new IllegalArgumentException("Client inconnu: " + clientName);
+        }
+        Integer typeId = typeIds.get(normalize(typeName));
+        if (typeId == null) {
+            throw new IllegalArgumentException("Type de service inconnu: " + typeName);
+        }
+
+        double prix = parseAmount(field(record, columns, "prix_total"), "prix_total");
+        String paye = field(record, columns, "montant_paye");
+        double montantPaye = paye == null ? 0 : parseAmount(paye, "montant_paye");
+        if (prix <= 0) {
+            throw new IllegalArgumentException("Le prix total doit être positif");
+        }
+        if (montantPaye < 0 || montantPaye > prix + 0.01) {
+            throw new IllegalArgumentException("Montant payé invalide: " + paye);
+        }
+
+        String statut = field(record, columns, "statut_service");
+        statut = statut == null ? "EN_ATTENTE" : statut.toUpperCase(Locale.ROOT);
+        if (!SERVICE_STATUSES.contains(statut)) {
+            throw new IllegalArgumentException("Statut de service invalide: " + statut);
+        }
+
+        String date = field(record, columns, "date_creation");
+        Timestamp dateCreation = date == null ? null : parseDate(date);
+
+        return new ServiceRow(line, clientId, typeId, field(record, columns, "description"),
+                prix, montantPaye, statut, dateCreation);
+    }
+
+    private void flushServices(Connection conn, PreparedStatement servicePs, PreparedStatement paymentPs,
+                               List<ServiceRow> batch, ImportResult result) throws SQLException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            for (ServiceRow row : batch) {
+                bindService(servicePs, row);
+                servicePs.addBatch();
+            }
+            servicePs.executeBatch();
+
+            // Generated ids come back in insertion order, one per row
+            int paymentCount = 0;
+            List<Integer> ids = new ArrayList<>(batch.size());
+            try (ResultSet keys = servicePs.getGeneratedKeys()) {
+                for (ServiceRow row : batch) {
+                    if (!keys.next()) {
+                        throw new SQLException("Missing generated id for line " + row.line);
+                    }
+                    ids.add(keys.getInt(1));
+                    if (row.montantPaye > 0) {
+                        bindPayment(paymentPs, keys.getInt(1), row);
+                        paymentPs.addBatch();
+                        paymentCount++;
+                    }
+                }
+            }
+            if (paymentCount > 0) {
+                paymentPs.executeBatch();
+            }
+            DailyRollup.addServices(conn, ids);
+
+            conn.commit();
+            result.inserted += batch.size();
+        } catch (SQLException e) {
+            // Retry row by row so a single bad row does not cost the whole batch
+            conn.rollback();
+            servicePs.clearBatch();
+            paymentPs.clearBatch();
+            for (ServiceRow row : batch) {
+                try {
+                    DailyRollup.addServices(conn, List.of(insertService(servicePs, paymentPs, row)));
+                    conn.commit();
+                    result.inserted++;
+                } catch (SQLException rowError) {
+                    conn.rollback();
+                    result.addError(row.line, rowError.getMessage());
+                }
+            }
+        }
+        batch.clear();
+    }
+
+    /**
+     * @return the generated service id
+     */
+    private static int insertService(PreparedStatement servicePs, PreparedStatement paymentPs,
+                                     ServiceRow row) throws SQLException {
+        bindService(servicePs, row);
+        servicePs.executeUpdate();
+        int serviceId;
+        try (ResultSet keys = servicePs.getGeneratedKeys()) {
+            if (!keys.next()) {
+                throw new SQLException("Missing generated id");
+            }
+            serviceId = keys.getInt(1);
+        }
+        if (row.montantPaye > 0) {
+            bindPayment(paymentPs, serviceId, row);
+            paymentPs.executeUpdate();
+        }
+        return serviceId;
+    }
+
+    private static void bindService(PreparedStatement ps, ServiceRow row) throws SQLException {
+        ps.setInt(1, row.clientId);
+        ps.setInt(2, row.typeId);
+        ps.setString(3, row.description);
+        ps.setDouble(4, row.prix);
+        ps.setDouble(5, row.montantPaye);
+        ps.setString(6, row.statut);
+        ps.setString(7, paymentStatus(row.montantPaye, row.prix));
+        ps.setTimestamp(8, row.dateCreation);
+    }
+
+    private static void bindPayment(PreparedStatement ps, int serviceId, ServiceRow row) throws SQLException {
+        ps.setInt(1, serviceId);
+        ps.setDouble(2, row.montantPaye);
+        ps.setTimestamp(3, row.dateCreation);
+    }
+
+    private static String paymentStatus(double paid, double total) {
+        if (paid <= 0) {
+            return "NON_PAYE";
+        }
+        return Math.abs(total - paid) < 0.01 ? "PAYE" : "PARTIELLEMENT_PAYE";
+    }
+
+    // ============ HELPERS ============
+
+    /**
+     * Name (case-insensitive) to id; the oldest row wins for duplicate names
+     */
+    private static Map<String, Integer> loadLookup(Connection conn, String sql) throws SQLException {
+        Map<String, Integer> lookup = new HashMap<>();
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery(sql)) {
+            while (rs.next()) {
+                lookup.putIfAbsent(normalize(rs.getString(2)), rs.getInt(1));
+            }
+        }
+        return lookup;
+    }
+
+    private static String normalize(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static void requireColumns(Map<String, Integer> columns, String... names) throws IOException {
+        for (String name : names) {
+            if (!columns.containsKey(name)) {
+                throw new IOException("Colonne manquante dans l'en-tête: " + name);
+            }
+        }
+    }
+
+    /**
+     * Trimmed value of a column, null when absent or blank
+     */
+    private static String field(List<String> record, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static double parseAmount(String value, String column) {
+        if (value == null) {
+            throw new IllegalArgumentException("Valeur manquante: " + column);
+        }
+        try {
+            // Accept "1 234,50" as exported by French spreadsheets
+            return Double.parseDouble(value.replace("\u00A0", "").replace(" ", "").replace(',', '.'));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Montant invalide pour " + column + ": " + value);
+        }
+    }
+
+    private static Timestamp parseDate(String value) {
+        for (DateTimeFormatter format : DATE_TIME_FORMATS) {
+            try {
+                return Timestamp.valueOf(LocalDateTime.parse(value, format));
+            } catch (DateTimeParseException ignored) {
+                // try the next format
+            }
+        }
+        for (DateTimeFormatter format : DATE_FORMATS) {
+            try {
+                return Timestamp.valueOf(LocalDate.parse(value, format).atStartOfDay());
+            } catch (DateTimeParseException ignored) {
+                // try the next format
+            }
+        }
+        throw new IllegalArgumentException("Date invalide: " + value);
+    }
+
+    // ============ CSV PARSING ============
+
+    /**
+     * Minimal RFC 4180 reader: quoted fields, doubled quotes, line breaks
+     * inside quotes. The separator (',' or ';') is taken from the header.
+     */
+    private static class CsvReader {
+        private final BufferedReader in;
+        private char separator = ',';
+        private int line = 0;
+        private int recordLine = 0;
+
+        CsvReader(Reader source) {
+            this.in = source instanceof BufferedReader ? (BufferedReader) source : new BufferedReader(source);
+        }
+
+        Map<String, Integer> readHeader() throws IOException {
+            String first = in.readLine();
+            if (first == null) {
+                throw new IOException("Fichier CSV vide");
+            }
+            line = 1;
+            if (first.startsWith("\uFEFF")) {
+                first = first.substring(1); // Excel UTF-8 BOM
+            }
+            if (first.indexOf(';') >= 0 && first.indexOf(',') < 0) {
+                separator = ';';
+            }
+
+            Map<String, Integer> columns = new HashMap<>();
+            List<String> names = parse(first);
+            for (int i = 0; i < names.size(); i++) {
+                columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+            return columns;
+        }
+
+        /**
+         * Next non-blank record, or null at end of file
+         */
+        List<String> readRecord() throws IOException {
+            String text;
+            do {
+                text = in.readLine();
+                if (text == null) {
+                    return null;
+                }
+                line++;
+            } while (text.isBlank());
+
+            recordLine = line;
+            // A quoted field may span several physical lines
+            StringBuilder record = new StringBuilder(text);
+            while (hasOpenQuote(record)) {
+                String next = in.readLine();
+                if (next == null) {
+                    break;
+                }
+                line++;
+                record.append('\n').append(next);
+            }
+            return parse(record.toString());
+        }
+
+        int getRecordLine() {
+            return recordLine;
+        }
+
+        private static boolean hasOpenQuote(CharSequence text) {
+            boolean open = false;
+            for (int i = 0; i < text.length(); i++) {
+                if (text.charAt(i) == '"') {
+                    open = !open;
+                }
+            }
+            return open;
+        }
+
+        private List<String> parse(String text) {
+            List<String> fields = new ArrayList<>();
+            StringBuilder current = new StringBuilder();
+            boolean quoted = false;
+
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (quoted) {
+                    if (c == '"') {
+                        if (i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                            current.append('"');
+                            i++;
+                        } else {
+                            quoted = false;
+                        }
+                    } else {
+                        current.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == separator) {
+                    fields.add(current.toString());
+                    current.setLength(0);
+                } else {
+                    current.append(c);
+                }
+            }
+            fields.add(current.toString());
+            return fields;
+        }
+    }
+
+    // ============ DATA CLASSES ============
+
+    private static class ClientRow {
+        final int line;
+        final String nom;
+        final String telephone;
+        final String email;
+        final String adresse;
+
+        ClientRow(int line, String nom, String telephone, String email, String adresse) {
+            this.line = line;
+            this.nom = nom;
+            this.telephone = telephone;
+            this.email = email;
+            this.adresse = adresse;
+        }
+    }
+
+    private static class ServiceRow {
+        final int line;
+        final int clientId;
+        final int typeId;
+        final String description;
+        final double prix;
+        final double montantPaye;
+        final String statut;
+        final Timestamp dateCreation;
+
+        ServiceRow(int line, int clientId, int typeId, String description, double prix,
+                   double montantPaye, String statut, Timestamp dateCreation) {
+            this.line = line;
+            this.clientId = clientId;
+            this.typeId = typeId;
+            this.description = description;
+            this.prix = prix;
+            this.montantPaye = montantPaye;
+            this.statut = statut;
+            this.dateCreation = dateCreation;
+        }
+    }
+
+    /**
+     * One rejected line of the file
+     */
+    public static class RowError {
+        private final int line;
+        private final String message;
+
+        public RowError(int line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        public int getLine() { return line; }
+        public String getMessage() { return message; }
+
+        @Override
+        public String toString() {
+            return "Ligne " + line + ": " + message;
+        }
+    }
+
+    /**
+     * Outcome of an import: rows inserted and rows rejected
+     */
+    public static class ImportResult {
+        private int inserted = 0;
+        private int failed = 0;
+        private final List<RowError> errors = new ArrayList<>();
+
+        private void addError(int line, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new RowError(line, message));
+            }
+        }
+
+        public int getInserted() { return inserted; }
+        public int getFailed() { return failed; }
+
+        /** The first rejected rows (at most 1000) */
+        public List<RowError> getErrors() { return errors; }
+    }
+}
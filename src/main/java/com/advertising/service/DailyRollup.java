@@ -0,0 +1,351 @@
+package com.advertising.service;
+
+import com.advertising.util.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Daily rollup of sales: one row per day and service type with the amount
+ * billed (services created that day), the amount collected (payments made
+ * that day) and the number of services.
+ *
+ * Trend charts read this table instead of scanning service and
+ * paiement_vente: five years are about 2k rows per type.
+ *
+ * The rollup is maintained incrementally by the code that writes services
+ * and payments, inside the same transaction (see ServiceManager and
+ * CsvImporter). {@link #rebuild()} recomputes it from the base tables.
+ *
+ * The table is created and filled off the mutation paths, by the
+ * dashboard's background refresh at startup ({@link #ensureTable()}).
+ * Until then the writers skip their deltas; the fill that follows counts
+ * those rows from the base tables.
+ */
+public final class DailyRollup {
+
+    private static final String CREATE_TABLE_SQL = """
+            CREATE TABLE IF NOT EXISTS service_daily_rollup (
+                jour DATE NOT NULL,
+                id_type_service INT NOT NULL,
+                montant_facture DECIMAL(14,2) NOT NULL DEFAULT 0,
+                montant_encaisse DECIMAL(14,2) NOT NULL DEFAULT 0,
+                nb_services INT NOT NULL DEFAULT 0,
+                PRIMARY KEY (jour, id_type_service)
+            )
+            """;
+
+    /** Adds the rows of a SELECT (jour, id_type_service, facture, encaisse, nb) to the rollup */
+    private static final String UPSERT_SQL = """
+            INSERT INTO service_daily_rollup
+            (jour, id_type_service, montant_facture, montant_encaisse, nb_services)
+            SELECT * FROM (%s) AS src
+            ON DUPLICATE KEY UPDATE
+                montant_facture = montant_facture + src.facture,
+                montant_encaisse = montant_encaisse + src.encaisse,
+                nb_services = nb_services + src.nb
+            """;
+
+    private static final String BILLED_SELECT = """
+            SELECT DATE(s.date_creation) AS jour, s.id_type_service,
+                   SUM(s.prix_total) * ? AS facture, 0 AS encaisse, COUNT(*) * ? AS nb
+            FROM service s
+            WHERE s.date_creation IS NOT NULL %s
+            GROUP BY DATE(s.date_creation), s.id_type_service
+            """;
+
+    private static final String COLLECTED_SELECT = """
+            SELECT DATE(p.date_paiement) AS jour, s.id_type_service,
+                   0 AS facture, SUM(p.montant) * ? AS encaisse, 0 AS nb
+            FROM paiement_vente p
+            JOIN service s ON p.id_service = s.id_service
+            WHERE p.date_paiement IS NOT NULL %s
+            GROUP BY DATE(p.date_paiement), s.id_type_service
+            """;
+
+    private static final String PAYMENT_SELECT = """
+            SELECT CURDATE() AS jour, s.id_type_service,
+                   0 AS facture, ? AS encaisse, 0 AS nb
+            FROM service s
+            WHERE s.id_service = ?
+            """;
+
+    private static volatile boolean tableReady = false;
+    // A writer skipped its delta before the table was ready: fill it again
+    private static volatile boolean changesMissed = false;
+
+    private DailyRollup() {
+    }
+
+    /**
+     * Create the table on first use and fill it from the base tables.
+     * Runs in the background (dashboard refresh), never from the write
+     * paths. Must not run inside a transaction (DDL commits implicitly).
+     */
+    public static void ensureTable() throws SQLException {
+        prepareTable();
+    }
+
+    /**
+     * Create and fill the table as one step: if the first fill fails the
+     * table is dropped again, so the next call starts over instead of
+     * adding deltas onto an empty table.
+     *
+     * @return true if the table was just created and filled
+     */
+    private static synchronized boolean prepareTable() throws SQLException {
+        if (tableReady) {
+            return false;
+        }
+        boolean created;
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            created = !tableExists(conn);
+            if (created) {
+                try (Statement st = conn.createStatement()) {
+                    st.execute(CREATE_TABLE_SQL);
+                }
+            }
+        }
+        if (created) {
+            try {
+                changesMissed = false;
+                fill();
+            } catch (SQLException e) {
+                dropTable(e);
+                throw e;
+            }
+        }
+        // Rows written meanwhile, without their delta
+        while (changesMissed) {
+            changesMissed = false;
+            fill();
+        }
+        tableReady = true;
+        return created;
+    }
+
+    private static void dropTable(SQLException cause) {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement st = conn.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS service_daily_rollup");
+        } catch (SQLException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    private static boolean tableExists(Connection conn) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getTables(conn.getCatalog(), null, "service_daily_rollup", null)) {
+            return rs.next();
+        }
+    }
+
+    // ============ INCREMENTAL MAINTENANCE ============
+
+    /**
+     * Whether the writers' deltas can be applied. If not, the change is
+     * noted so the pending fill counts it.
+     */
+    private static boolean maintained() {
+        if (!tableReady) {
+            changesMissed = true;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Count new services: billed amount on their creation day, plus any
+     * payment already recorded for them (initial payment, import)
+     */
+    public static void addServices(Connection conn, Collection<Integer> serviceIds) throws SQLException {
+        applyServices(conn, serviceIds, 1);
+    }
+
+    /**
+     * Take services about to be deleted out of the rollup, with their
+     * payments. Call before deleting the rows.
+     */
+    public static void removeServices(Connection conn, Collection<Integer> serviceIds) throws SQLException {
+        applyServices(conn, serviceIds, -1);
+    }
+
+    /**
+     * Count a payment recorded today
+     */
+    public static void addPayment(Connection conn, int serviceId, double amount) throws SQLException {
+        if (!maintained()) {
+            return;
+        }
+        try (PreparedStatement ps = conn.prepareStatement(UPSERT_SQL.formatted(PAYMENT_SELECT))) {
+            ps.setDouble(1, amount);
+            ps.setInt(2, serviceId);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Count payments recorded today, as one JDBC batch
+     */
+    public static void addPayments(Connection conn, List<ServiceManager.PaymentRequest> payments) throws SQLException {
+        if (!maintained()) {
+            return;
+        }
+        try (PreparedStatement ps = conn.prepareStatement(UPSERT_SQL.formatted(PAYMENT_SELECT))) {
+            for (ServiceManager.PaymentRequest payment : payments) {
+                ps.setDouble(1, payment.getAmount());
+                ps.setInt(2, payment.getServiceId());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    private static void applyServices(Connection conn, Collection<Integer> serviceIds, int sign) throws SQLException {
+        if (serviceIds.isEmpty() || !maintained()) {
+            return;
+        }
+        String inList = "AND s.id_service IN (" + String.join(", ", Collections.nCopies(serviceIds.size(), "?")) + ")";
+
+        try (PreparedStatement ps = conn.prepareStatement(UPSERT_SQL.formatted(BILLED_SELECT.formatted(inList)))) {
+            ps.setInt(1, sign);
+            ps.setInt(2, sign);
+            bindIds(ps, 3, serviceIds);
+            ps.executeUpdate();
+        }
+        try (PreparedStatement ps = conn.prepareStatement(UPSERT_SQL.formatted(COLLECTED_SELECT.formatted(inList)))) {
+            ps.setInt(1, sign);
+            bindIds(ps, 2, serviceIds);
+            ps.executeUpdate();
+        }
+    }
+
+    private static void bindIds(PreparedStatement ps, int start, Collection<Integer> ids) throws SQLException {
+        int i = start;
+        for (Integer id : ids) {
+            ps.setInt(i++, id);
+        }
+    }
+
+    // ============ REBUILD ============
+
+    /**
+     * Recompute the whole rollup from service and paiement_vente
+     */
+    public static void rebuild() throws SQLException {
+        if (!prepareTable()) {
+            fill();
+        }
+    }
+
+    private static void fill() throws SQLException {
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            try (Statement st = conn.createStatement()) {
+                st.executeUpdate("DELETE FROM service_daily_rollup");
+            }
+            try (PreparedStatement ps = conn.prepareStatement(UPSERT_SQL.formatted(BILLED_SELECT.formatted("")))) {
+                ps.setInt(1, 1);
+                ps.setInt(2, 1);
+                ps.executeUpdate();
+            }
+            try (PreparedStatement ps = conn.prepareStatement(UPSERT_SQL.formatted(COLLECTED_SELECT.formatted("")))) {
+                ps.setInt(1, 1);
+                ps.executeUpdate();
+            }
+
+            conn.commit();
+
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    ex.printStackTrace();
+                }
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    // ============ QUERIES ============
+
+    /**
+     * Billed and collected per month since {@code from}, all types together
+     */
+    public static List<MonthlyTotals> loadMonthlyTotals(LocalDate from) throws SQLException {
+        ensureTable();
+
+        String sql = """
+                SELECT DATE_FORMAT(jour, '%Y-%m') AS mois,
+                       SUM(montant_facture) AS facture,
+                       SUM(montant_encaisse) AS encaisse,
+                       SUM(nb_services) AS nb
+                FROM service_daily_rollup
+                WHERE jour >= ?
+                GROUP BY mois
+                ORDER BY mois
+                """;
+
+        List<MonthlyTotals> months = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setDate(1, Date.valueOf(from));
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    months.add(new MonthlyTotals(
+                            rs.getString("mois"),
+                            rs.getDouble("facture"),
+                            rs.getDouble("encaisse"),
+                            rs.getInt("nb")));
+                }
+            }
+        }
+        return months;
+    }
+
+    /**
+     * One point of the revenue trend
+     */
+    public static class MonthlyTotals {
+        private final String month;
+        private final double billed;
+        private final double collected;
+        private final int serviceCount;
+
+        public MonthlyTotals(String month, double billed, double collected, int serviceCount) {
+            this.month = month;
+            this.billed = billed;
+            this.collected = collected;
+            this.serviceCount = serviceCount;
+        }
+
+        /** yyyy-MM */
+        public String getMonth() { return month; }
+        public double getBilled() { return billed; }
+        public double getCollected() { return collected; }
+        public int getServiceCount() { return serviceCount; }
+    }
+}
@@ -0,0 +1,133 @@
+package com.advertising.service;
+
+import com.advertising.util.DatabaseConnection;
+import javafx.application.Platform;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * App-wide cache of the dashboard figures
+ *
+ * Holds the headline KPIs and the monthly revenue trend of the last
+ * {@link #TREND_MONTHS} months (read from the daily rollup).
+ *
+ * The aggregates are computed on a background thread, every TTL seconds
+ * (setting dashboard.cacheTtlSeconds, default 60) and shortly after a local
+ * mutation ({@link #invalidate()}). The dashboard reads the last values
+ * instantly and is notified on the FX thread when fresh ones arrive, so
+ * it never queries MySQL itself.
+ */
+public class DashboardCache {
+
+    private static DashboardCache instance;
+
+    /** Mutations arriving in a burst (batch payments, imports) cause one refresh */
+    private static final long INVALIDATION_DELAY_MS = 500;
+
+    public static final int TREND_MONTHS = 24;
+
+    private final ServiceManager serviceManager = new ServiceManager();
+    private final ScheduledExecutorService scheduler;
+    private final long ttlSeconds;
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean(false);
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile ServiceManager.DashboardKpis kpis;
+    private volatile List<DailyRollup.MonthlyTotals> monthlyTrend = List.of();
+
+    private DashboardCache(long ttlSeconds) {
+        this.ttlSeconds = ttlSeconds;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "dashboard-cache");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::refresh, 0, ttlSeconds, TimeUnit.SECONDS);
+    }
+
+    public static synchronized DashboardCache getInstance() {
+        if (instance == null) {
+            long ttl = Long.parseLong(DatabaseConnection.getSetting("dashboard.cacheTtlSeconds", "60"));
+            instance = new DashboardCache(Math.max(1, ttl));
+        }
+        return instance;
+    }
+
+    public long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    /**
+     * Last computed figures, or null until the first refresh completes
+     */
+    public ServiceManager.DashboardKpis getKpis() {
+        return kpis;
+    }
+
+    /**
+     * Billed / collected per month, oldest first (empty until the first refresh)
+     */
+    public List<DailyRollup.MonthlyTotals> getMonthlyTrend() {
+        return monthlyTrend;
+    }
+
+    /**
+     * Called on the FX thread after every refresh
+     */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Data changed locally: refresh soon instead of waiting for the TTL
+     */
+    public void invalidate() {
+        if (refreshScheduled.compareAndSet(false, true)) {
+            scheduler.schedule(() -> {
+                refreshScheduled.set(false);
+                refresh();
+            }, INVALIDATION_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void refresh() {
+        try {
+            // First run, at startup: creates and fills the daily rollup here,
+            // off the write paths
+            DailyRollup.ensureTable();
+            kpis = serviceManager.loadDashboardKpis();
+            monthlyTrend = DailyRollup.loadMonthlyTotals(
+                    LocalDate.now().withDayOfMonth(1).minusMonths(TREND_MONTHS - 1));
+            if (!listeners.isEmpty()) {
+                Platform.runLater(() -> listeners.forEach(Runnable::run));
+            }
+        } catch (SQLException e) {
+            // Keep serving the previous value; the next refresh retries
+            System.err.println("Dashboard refresh failed: " + e.getMessage());
+        } catch (RuntimeException e) {
+            // Never let an exception cancel the periodic refresh
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Stop the background refresh (application exit)
+     */
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            instance.scheduler.shutdownNow();
+            instance = null;
+        }
+    }
+}
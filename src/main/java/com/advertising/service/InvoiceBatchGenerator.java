@@ -0,0 +1,160 @@
+package com.advertising.service;
+
+import com.advertising.controller.ServiceController.Payment;
+import com.advertising.controller.ServiceController.Service;
+import com.advertising.util.DatabaseConnection;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.io.File;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates the invoices of many services at once
+ *
+ * The payments and client details of the whole batch are read up front in
+ * a few IN queries, then the PDFs are rendered on a fixed pool of worker
+ * threads (setting invoice.batchThreads, default one per core). Each worker
+ * has its own PdfReportGenerator, so documents never share state; only the
+ * font programs are shared. A failed invoice is reported and the others
+ * go on.
+ */
+public class InvoiceBatchGenerator {
+
+    /**
+     * Called from the worker threads after each invoice (written or failed)
+     */
+    public interface ProgressListener {
+        void onProgress(int done, int total);
+    }
+
+    private static final DateTimeFormatter BATCH_FOLDER_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+
+    private final ServiceManager serviceManager;
+    private final File baseDirectory;
+    private final int threads;
+
+    public InvoiceBatchGenerator(ServiceManager serviceManager) {
+        this(serviceManager, new File("factures"));
+    }
+
+    public InvoiceBatchGenerator(ServiceManager serviceManager, File baseDirectory) {
+        this.serviceManager = serviceManager;
+        this.baseDirectory = baseDirectory;
+        int configured = Integer.parseInt(DatabaseConnection.getSetting("invoice.batchThreads", "0"));
+        this.threads = configured > 0 ? configured : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Write one invoice per service into a new lot_yyyyMMdd_HHmmss folder
+     *
+     * @throws InterruptedException if the calling thread is interrupted
+     *         (cancel): the workers are stopped and nothing more is written
+     */
+    public BatchResult generate(List<Service> services, ProgressListener progress)
+            throws SQLException, InterruptedException {
+
+        List<Integer> ids = new ArrayList<>(services.size());
+        List<String> clientNames = new ArrayList<>(services.size());
+        for (Service service : services) {
+            ids.add(service.getId());
+            clientNames.add(service.getClient());
+        }
+        Map<Integer, ObservableList<Payment>> payments = serviceManager.loadPaymentHistories(ids);
+        Map<String, ServiceManager.ClientDetails> clients = serviceManager.getClientDetails(clientNames);
+
+        File directory = new File(baseDirectory, "lot_" + LocalDateTime.now().format(BATCH_FOLDER_FORMAT));
+        directory.mkdirs();
+
+        AtomicInteger workerCount = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, services.size())), r -> {
+            Thread t = new Thread(r, "invoice-batch-" + workerCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        ThreadLocal<PdfReportGenerator> generators = ThreadLocal.withInitial(() -> new PdfReportGenerator(directory));
+
+        BatchResult result = new BatchResult(directory);
+        AtomicInteger done = new AtomicInteger();
+        try {
+            for (Service service : services) {
+                pool.execute(() -> {
+                    try {
+                        File file = InvoiceCache.getInstance().getOrGenerate(generators.get(), service,
+                                payments.getOrDefault(service.getId(), FXCollections.observableArrayList()),
+                                clients.get(service.getClient()));
+                        result.addFile(file);
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                        result.addFailure(new Failure(service.getId(), service.getClient(), e.getMessage()));
+                    } finally {
+                        if (progress != null) {
+                            progress.onProgress(done.incrementAndGet(), services.size());
+                        }
+                    }
+                });
+            }
+            pool.shutdown();
+            while (!pool.awaitTermination(1, TimeUnit.SECONDS)) {
+                // wait for the last invoices
+            }
+        } finally {
+            // Cancelled (interrupted): drop the invoices not started yet
+            pool.shutdownNow();
+        }
+        return result;
+    }
+
+    /**
+     * Outcome of a batch: the files written and the invoices that failed
+     */
+    public static class BatchResult {
+        private final File directory;
+        private final List<File> files = new ArrayList<>();
+        private final List<Failure> failures = new ArrayList<>();
+
+        BatchResult(File directory) {
+            this.directory = directory;
+        }
+
+        synchronized void addFile(File file) {
+            files.add(file);
+        }
+
+        synchronized void addFailure(Failure failure) {
+            failures.add(failure);
+        }
+
+        public File getDirectory() { return directory; }
+        public synchronized List<File> getFiles() { return new ArrayList<>(files); }
+        public synchronized List<Failure> getFailures() { return new ArrayList<>(failures); }
+    }
+
+    /**
+     * An invoice that could not be written
+     */
+    public static class Failure {
+        private final int serviceId;
+        private final String client;
+        private final String message;
+
+        public Failure(int serviceId, String client, String message) {
+            this.serviceId = serviceId;
+            this.client = client;
+            this.message = message;
+        }
+
+        public int getServiceId() { return serviceId; }
+        public String getClient() { return client; }
+        public String getMessage() { return message; }
+    }
+}
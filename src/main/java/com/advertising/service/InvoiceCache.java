@@ -0,0 +1,388 @@
+package com.advertising.service;
+
+import com.advertising.controller.ServiceController.Payment;
+import com.advertising.controller.ServiceController.Service;
+import javafx.collections.ObservableList;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Invoices already written, by hash of what they show
+ *
+ * The key is a SHA-256 of the invoice inputs: the service fields, its
+ * payments, the client details and {@link PdfReportGenerator#TEMPLATE_VERSION}.
+ * When nothing changed since an invoice was written, that file is returned
+ * instead of rendering a new one (copied first if it was written to
+ * another folder, e.g. a previous batch). The date printed on an invoice
+ * is that of its first generation.
+ *
+ * When the only change is new payments, the last invoice of the service is
+ * brought up to date instead, by an incremental update appending them
+ * (see {@link PdfReportGenerator#appendPayments}); it is regenerated when
+ * that is not possible.
+ *
+ * The index (hash -> path, and the last invoice of each service) is kept
+ * in factures/.index.properties as an append-only log: each change adds a
+ * line (an empty value removes the key), written outside the cache lock,
+ * and the last line of a key wins. Entries whose file was deleted are
+ * dropped on lookup, and when the index is loaded; the file is compacted
+ * then if it holds mostly dead lines.
+ */
+public class InvoiceCache {
+
+    private static InvoiceCache instance;
+
+    /** Index entries service.<id> -> last invoice of the service */
+    private static final String SERVICE_KEY = "service.";
+
+    private final File indexFile;
+    private Map<String, String> index;
+    // Hash keys of each file, to drop them when the file is updated in place
+    private final Map<String, Set<String>> keysByPath = new HashMap<>();
+    // Log lines not written yet, in index order (guarded by this)
+    private final List<String> pendingLines = new ArrayList<>();
+    private final Object logLock = new Object();
+    // One lock per invoice file, so that two appends to the same file do not interleave
+    private final Map<String, Object> fileLocks = new ConcurrentHashMap<>();
+
+    private InvoiceCache(File indexFile) {
+        this.indexFile = indexFile;
+    }
+
+    public static synchronized InvoiceCache getInstance() {
+        if (instance == null) {
+            instance = new InvoiceCache(new File("factures", ".index.properties"));
+        }
+        return instance;
+    }
+
+    /**
+     * The invoice of this service in the generator's folder: the existing
+     * file if the same inputs were already rendered, else a new one
+     */
+    public File getOrGenerate(PdfReportGenerator generator, Service service,
+                              ObservableList<Payment> payments, ServiceManager.ClientDetails clientDetails) throws IOException {
+        String key = hash(service, payments, clientDetails);
+        File cached = lookup(key);
+        File directory = generator.getOutputDirectory();
+        flushLog();
+
+        if (cached != null && directory.getAbsoluteFile().equals(cached.getParentFile())) {
+            return cached;
+        }
+        if (cached != null) {
+            File copy = new File(directory, cached.getName());
+            Files.copy(cached.toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            return copy;
+        }
+
+        // Only new payments since the last invoice of this service: append them to it.
+        // The file work runs outside the cache lock, under a lock on that file only.
+        File previous;
+        synchronized (this) {
+            previous = latest(service.getId());
+        }
+        flushLog();
+        if (previous != null && directory.getAbsoluteFile().equals(previous.getParentFile())) {
+            try {
+                synchronized (fileLock(previous)) {
+                    if (generator.appendPayments(previous, service, payments, clientDetails)) {
+                        synchronized (this) {
+                            // Unless a newer invoice of the service was indexed meanwhile
+                            if (previous.equals(latest(service.getId()))) {
+                                put(key, service.getId(), previous);
+                                return previous;
+                            }
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                // Revision not written (file truncated back): a new invoice is rendered instead
+                System.err.println("Invoice not updated in place: " + e.getMessage());
+            } finally {
+                flushLog();
+            }
+        }
+
+        File pdfFile = generator.generateServiceInvoice(service, payments, clientDetails);
+        synchronized (this) {
+            put(key, service.getId(), pdfFile);
+        }
+        flushLog();
+        return pdfFile;
+    }
+
+    private Object fileLock(File pdfFile) {
+        return fileLocks.computeIfAbsent(pdfFile.getAbsolutePath(), path -> new Object());
+    }
+
+    private synchronized File lookup(String key) {
+        String path = index().get(key);
+        if (path == null) {
+            return null;
+        }
+        File file = new File(path);
+        if (!file.isFile()) {
+            remove(key);
+            return null;
+        }
+        return file;
+    }
+
+    /**
+     * The last invoice written for a service, if still there
+     */
+    private File latest(int serviceId) {
+        String key = SERVICE_KEY + serviceId;
+        String path = index().get(key);
+        if (path == null) {
+            return null;
+        }
+        File file = new File(path);
+        if (!file.isFile()) {
+            remove(key);
+            return null;
+        }
+        return file;
+    }
+
+    // Callers hold the lock
+
+    private void put(String key, int serviceId, File pdfFile) {
+        String path = pdfFile.getAbsolutePath();
+        // A file updated in place no longer matches the inputs it was indexed under
+        Set<String> stale = keysByPath.remove(path);
+        if (stale != null) {
+            for (String staleKey : stale) {
+                if (!staleKey.equals(key)) {
+                    remove(staleKey);
+                }
+            }
+        }
+        set(key, path);
+        set(SERVICE_KEY + serviceId, path);
+    }
+
+    private void set(String key, String path) {
+        unlink(key, index().put(key, path));
+        if (!key.startsWith(SERVICE_KEY)) {
+            keysByPath.computeIfAbsent(path, p -> new HashSet<>()).add(key);
+        }
+        pendingLines.add(escape(key) + "=" + escape(path));
+    }
+
+    private void remove(String key) {
+        unlink(key, index().remove(key));
+        pendingLines.add(escape(key) + "=");
+    }
+
+    private void unlink(String key, String oldPath) {
+        Set<String> keys = oldPath != null ? keysByPath.get(oldPath) : null;
+        if (keys != null) {
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                keysByPath.remove(oldPath);
+            }
+        }
+    }
+
+    private Map<String, String> index() {
+        if (index == null) {
+            index = new HashMap<>();
+            int lines = 0;
+            if (indexFile.isFile()) {
+                Properties log = new Properties();
+                try {
+                    String text = Files.readString(indexFile.toPath(), StandardCharsets.UTF_8);
+                    lines = (int) text.lines().count();
+                    log.load(new StringReader(text));
+                } catch (IOException e) {
+                    // Start over: the invoices are rendered again and re-indexed
+                    System.err.println("Invoice index unreadable: " + e.getMessage());
+                    log.clear();
+                }
+                for (String key : log.stringPropertyNames()) {
+                    String path = log.getProperty(key);
+                    if (!path.isEmpty() && new File(path).isFile()) {
+                        index.put(key, path);
+                        if (!key.startsWith(SERVICE_KEY)) {
+                            keysByPath.computeIfAbsent(path, p -> new HashSet<>()).add(key);
+                        }
+                    }
+                }
+            }
+            if (lines > 2 * index.size() + 100) {
+                compact();
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Rewrite the log with the live entries only (once, on load)
+     */
+    private void compact() {
+        List<String> live = new ArrayList<>(index.size() + 1);
+        live.add("# Invoice cache: input hash -> file");
+        index.forEach((key, path) -> live.add(escape(key) + "=" + escape(path)));
+        try {
+            indexFile.getParentFile().mkdirs();
+            File temp = new File(indexFile.getPath() + ".part");
+            Files.write(temp.toPath(), live, StandardCharsets.UTF_8);
+            Files.move(temp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.err.println("Invoice index not compacted: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Append the pending lines to the log. Called without the cache lock,
+     * so workers do not wait for each other's writes.
+     */
+    private void flushLog() {
+        synchronized (logLock) {
+            List<String> lines;
+            synchronized (this) {
+                if (pendingLines.isEmpty()) {
+                    return;
+                }
+                lines = new ArrayList<>(pendingLines);
+                pendingLines.clear();
+            }
+            try {
+                indexFile.getParentFile().mkdirs();
+                Files.write(indexFile.toPath(), lines, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                // Only costs re-rendering after a restart
+                System.err.println("Invoice index not saved: " + e.getMessage());
+            }
+        }
+    }
+
+    // Properties syntax, for keys and paths (e.g. C:\factures on Windows)
+    private static String escape(String value) {
+        StringBuilder out = new StringBuilder(value.length() + 8);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '=' || c == ':' || c == '#' || c == '!' || (c == ' ' && i == 0)) {
+                out.append('\\');
+            }
+            out.append(c);
+        }
+        return out.toString();
+    }
+
+    // ============ HASH ============
+
+    /**
+     * Key of an invoice: everything it shows
+     */
+    static String hash(Service service, List<Payment> payments, ServiceManager.ClientDetails client) {
+        return digest(out -> {
+            writeBase(out, service, client);
+            out.writeDouble(service.getMontantPaye());
+            out.writeDouble(service.getReste());
+            writeString(out, service.getStatutPaiement());
+            writePayments(out, payments);
+        });
+    }
+
+    /**
+     * What an invoice shows apart from its payments and the amounts they
+     * change: an invoice can be brought up to date by appending payments
+     * only while this is unchanged
+     */
+    static String baseHash(Service service, ServiceManager.ClientDetails client) {
+        return digest(out -> writeBase(out, service, client));
+    }
+
+    static String paymentsHash(List<Payment> payments) {
+        return digest(out -> writePayments(out, payments));
+    }
+
+    private interface HashInput {
+        void writeTo(DataOutputStream out) throws IOException;
+    }
+
+    private static String digest(HashInput input) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(PdfReportGenerator.TEMPLATE_VERSION);
+            input.writeTo(out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // in-memory stream
+        }
+
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes.toByteArray()));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // every JVM has SHA-256
+        }
+    }
+
+    private static void writeBase(DataOutputStream out, Service service, ServiceManager.ClientDetails client)
+            throws IOException {
+        out.writeInt(service.getId());
+        writeString(out, service.getClient());
+        writeString(out, service.getType());
+        writeString(out, service.getDescription());
+        out.writeDouble(service.getPrixTotal());
+        writeString(out, service.getStatutService());
+        writeTimestamp(out, service.getDateCreation());
+
+        out.writeBoolean(client != null);
+        if (client != null) {
+            writeString(out, client.getNom());
+            writeString(out, client.getTelephone());
+            writeString(out, client.getEmail());
+            writeString(out, client.getAdresse());
+        }
+    }
+
+    private static void writePayments(DataOutputStream out, List<Payment> payments) throws IOException {
+        int count = payments == null ? 0 : payments.size();
+        out.writeInt(count);
+        for (int i = 0; i < count; i++) {
+            Payment payment = payments.get(i);
+            writeTimestamp(out, payment.getDate());
+            out.writeDouble(payment.getMontant());
+            writeString(out, payment.getModePaiement());
+        }
+    }
+
+    // Length-prefixed, so that ("ab", "c") and ("a", "bc") differ
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    private static void writeTimestamp(DataOutputStream out, Timestamp value) throws IOException {
+        out.writeLong(value == null ? Long.MIN_VALUE : value.getTime());
+    }
+}
@@ -0,0 +1,155 @@
+package com.advertising.service;
+
+import com.advertising.controller.ServiceController.Payment;
+import com.advertising.controller.ServiceController.Service;
+import com.advertising.util.DatabaseConnection;
+import javafx.application.Platform;
+import javafx.beans.Observable;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.io.File;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * App-wide queue of single invoice generations
+ *
+ * {@link #submit} returns at once; the history, client details and PDF
+ * are done by background workers (setting invoice.jobThreads, default 2).
+ * At most invoice.jobQueueSize jobs (default 20) wait for a worker: beyond
+ * that the submission is refused, so a burst of clicks cannot pile up
+ * unbounded work.
+ *
+ * The jobs (waiting, running, then the last {@link #MAX_FINISHED} finished
+ * ones) are listed for the jobs panel. The list and the job states are
+ * only changed on the FX thread.
+ */
+public class InvoiceJobQueue {
+
+    private static InvoiceJobQueue instance;
+
+    /** Finished jobs kept in the list, oldest dropped first */
+    private static final int MAX_FINISHED = 20;
+
+    public enum Status {
+        PENDING("⏳ En attente"),
+        RUNNING("⚙ En cours"),
+        DONE("✅ Terminée"),
+        FAILED("❌ Échec");
+
+        private final String label;
+
+        Status(String label) {
+            this.label = label;
+        }
+
+        public boolean isFinished() {
+            return this == DONE || this == FAILED;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    private final ServiceManager serviceManager = new ServiceManager();
+    private final ThreadPoolExecutor executor;
+    private final ThreadLocal<PdfReportGenerator> generators = ThreadLocal.withInitial(PdfReportGenerator::new);
+    // Status changes are reported as list updates, so the panel's cells follow them
+    private final ObservableList<Job> jobs = FXCollections.observableArrayList(job -> new Observable[]{job.status});
+    private final ObservableList<Job> jobsView = FXCollections.unmodifiableObservableList(jobs);
+
+    private InvoiceJobQueue(int threads, int capacity) {
+        AtomicInteger workerCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacity), r -> {
+                    Thread t = new Thread(r, "invoice-job-" + workerCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public static synchronized InvoiceJobQueue getInstance() {
+        if (instance == null) {
+            int threads = Integer.parseInt(DatabaseConnection.getSetting("invoice.jobThreads", "2"));
+            int capacity = Integer.parseInt(DatabaseConnection.getSetting("invoice.jobQueueSize", "20"));
+            instance = new InvoiceJobQueue(Math.max(1, threads), Math.max(1, capacity));
+        }
+        return instance;
+    }
+
+    /**
+     * Jobs, most recent first (FX thread)
+     */
+    public ObservableList<Job> getJobs() {
+        return jobsView;
+    }
+
+    /**
+     * Queue the invoice of a service. Call on the FX thread.
+     *
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public Job submit(Service service) {
+        Job job = new Job(service);
+        executor.execute(() -> run(job));
+        jobs.add(0, job);
+        return job;
+    }
+
+    private void run(Job job) {
+        Platform.runLater(() -> job.status.set(Status.RUNNING));
+        try {
+            Service service = job.service;
+            ObservableList<Payment> payments = serviceManager.loadPaymentHistory(service.getId());
+            ServiceManager.ClientDetails clientDetails = serviceManager.getClientDetails(service.getClient());
+            File file = InvoiceCache.getInstance().getOrGenerate(generators.get(), service, payments, clientDetails);
+            Platform.runLater(() -> finish(job, Status.DONE, file, null));
+        } catch (Exception e) {
+            e.printStackTrace();
+            Platform.runLater(() -> finish(job, Status.FAILED, null, e.getMessage()));
+        }
+    }
+
+    private void finish(Job job, Status status, File file, String error) {
+        job.file = file;
+        job.error = error;
+        job.status.set(status);
+
+        int finished = 0;
+        for (int i = 0; i < jobs.size(); i++) {
+            if (jobs.get(i).getStatus().isFinished() && ++finished > MAX_FINISHED) {
+                jobs.remove(i--);
+            }
+        }
+    }
+
+    /**
+     * One invoice to generate
+     */
+    public static class Job {
+        private final Service service;
+        private final ReadOnlyObjectWrapper<Status> status = new ReadOnlyObjectWrapper<>(Status.PENDING);
+        private File file;
+        private String error;
+
+        Job(Service service) {
+            this.service = service;
+        }
+
+        public Service getService() { return service; }
+        public Status getStatus() { return status.get(); }
+        public ReadOnlyObjectProperty<Status> statusProperty() { return status.getReadOnlyProperty(); }
+        /** The invoice written, once DONE */
+        public File getFile() { return file; }
+        /** Why it failed, once FAILED */
+        public String getError() { return error; }
+    }
+}
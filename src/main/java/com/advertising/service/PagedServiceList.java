@@ -0,0 +1,574 @@
+package com.advertising.service;
+
+import com.advertising.controller.ServiceController.Service;
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Virtualized, read-only list of services for the service grid
+ *
+ * Shows the services matching a {@link ServiceQuery}. Only the size is
+ * known up front; rows are fetched a page at a time, on a background
+ * thread, when the TableView asks for them:
+ * - Pages are read by keyset (date_creation, id_service) from the last row
+ *   of the previous page; OFFSET is only used to jump to an unknown page
+ * - The page after the one being displayed is prefetched
+ * - Pages far from the viewport are evicted so memory stays bounded
+ *
+ * When every matching row is already in memory (see {@link ServiceIndex})
+ * the list can be reset in resident mode: nothing is fetched or evicted.
+ *
+ * Rows not loaded yet are returned as {@link Service#PLACEHOLDER}.
+ * All methods must be called on the JavaFX Application Thread.
+ */
+public class PagedServiceList extends ObservableListBase<Service> {
+
+    private final ServiceManager serviceManager;
+    private final int pageSize;
+    private final int residentPages;
+    private final ThreadPoolExecutor loader;
+
+    private final Map<Integer, List<Service>> pages = new HashMap<>();
+    private final Map<Integer, ServiceManager.ServiceKey> pageStartKeys = new HashMap<>();
+    private final Set<Integer> pending = new HashSet<>();
+
+    private ServiceQuery query = ServiceQuery.ALL;
+    private int size = 0;
+    private int generation = 0;
+    private boolean resident = false;
+    private boolean notifying = false;
+    private volatile int currentPage = 0;
+    private Consumer<Throwable> errorHandler = Throwable::printStackTrace;
+
+    public PagedServiceList(ServiceManager serviceManager) {
+        this(serviceManager, ServiceManager.DEFAULT_PAGE_SIZE, 10);
+    }
+
+    /**
+     * @param pageSize rows per page
+     * @param residentPages maximum number of pages kept in memory
+     */
+    public PagedServiceList(ServiceManager serviceManager, int pageSize, int residentPages) {
+        this.serviceManager = serviceManager;
+        this.pageSize = pageSize;
+        this.residentPages = Math.max(2, residentPages);
+
+        this.loader = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "service-page-loader");
+            t.setDaemon(true);
+            return t;
+        });
+        this.loader.allowCoreThreadTimeOut(true);
+    }
+
+    public void setErrorHandler(Consumer<Throwable> errorHandler) {
+        this.errorHandler = errorHandler;
+    }
+
+    /**
+     * Drop every cached page and expose the {@code newSize} rows matching
+     * {@code newQuery}. Called after the filters or the underlying data changed.
+     */
+    public void reset(ServiceQuery newQuery, int newSize) {
+        reset(newQuery, newSize, null);
+    }
+
+    /**
+     * Same as {@link #reset(ServiceQuery, int)} with the first page already
+     * fetched, so the grid shows rows in the same pulse
+     */
+    public void reset(ServiceQuery newQuery, int newSize, List<Service> firstPage) {
+        clearPages(newQuery, false);
+
+        if (firstPage != null) {
+            pages.put(0, firstPage);
+            if (!firstPage.isEmpty()) {
+                pageStartKeys.put(1, ServiceManager.ServiceKey.of(firstPage.get(firstPage.size() - 1)));
+            }
+        }
+
+        fireReset(newSize);
+    }
+
+    /**
+     * Expose rows already resolved in memory: every page is resident,
+     * nothing is fetched from the database or evicted
+     */
+    public void resetResident(ServiceQuery newQuery, List<Service> allRows) {
+        clearPages(newQuery, true);
+
+        for (int start = 0; start < allRows.size(); start += pageSize) {
+            int end = Math.min(start + pageSize, allRows.size());
+            pages.put(start / pageSize, new ArrayList<>(allRows.subList(start, end)));
+        }
+
+        fireReset(allRows.size());
+    }
+
+    private void clearPages(ServiceQuery newQuery, boolean residentRows) {
+        generation++;
+        query = newQuery;
+        resident = residentRows;
+        pages.clear();
+        pending.clear();
+        pageStartKeys.clear();
+    }
+
+    private void fireReset(int newSize) {
+        int oldSize = size;
+        size = newSize;
+
+        beginChange();
+        if (oldSize > 0) {
+            nextRemove(0, Collections.nCopies(oldSize, Service.PLACEHOLDER));
+        }
+        if (newSize > 0) {
+            nextAdd(0, newSize);
+        }
+        fireChange();
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public ServiceQuery getQuery() {
+        return query;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Service get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+
+        int page = index / pageSize;
+
+        // Listeners reading a change (e.g. an evicted page) must not reload it
+        if (!notifying) {
+            currentPage = page;
+            requestPage(page);
+            requestPage(page + 1); // prefetch
+        }
+
+        List<Service> rows = pages.get(page);
+        int offset = index - page * pageSize;
+        if (rows == null || offset >= rows.size()) {
+            return Service.PLACEHOLDER;
+        }
+        return rows.get(offset);
+    }
+
+    /**
+     * Replace a resident row in place (same id), e.g. after a payment
+     *
+     * @return false if the row is not currently loaded
+     */
+    public boolean replaceService(Service updated) {
+        for (Map.Entry<Integer, List<Service>> entry : pages.entrySet()) {
+            List<Service> rows = entry.getValue();
+            for (int i = 0; i < rows.size(); i++) {
+                if (rows.get(i).getId() == updated.getId()) {
+                    Service old = rows.set(i, updated);
+                    int index = entry.getKey() * pageSize + i;
+                    if (index < size) {
+                        beginChange();
+                        nextSet(index, old);
+                        fireChange();
+                    }
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Insert a new row at its place in the grid order, e.g. after a service
+     * was added. The place must lie within the loaded rows (or at the start
+     * or end of the list next to them); following resident pages are
+     * shifted by one row, and pages loaded after a gap are dropped and
+     * re-fetched on demand.
+     *
+     * @return false if the place of the row is not loaded
+     */
+    public boolean insertService(Service added) {
+        int index = insertionIndex(added);
+        if (index < 0) {
+            return false;
+        }
+
+        // In-flight loads were computed with the old row positions
+        generation++;
+        pending.clear();
+
+        int page = index / pageSize;
+        List<Service> rows = pages.computeIfAbsent(page, p -> new ArrayList<>());
+        rows.add(index - page * pageSize, added);
+        int last = page;
+        while (rows.size() > pageSize) {
+            Service overflow = rows.remove(rows.size() - 1);
+            pageStartKeys.put(last + 1, ServiceManager.ServiceKey.of(rows.get(rows.size() - 1)));
+            if (!pages.containsKey(last + 1)) {
+                break; // fetched again by keyset with the new start key
+            }
+            last++;
+            rows = pages.get(last);
+            rows.add(0, overflow);
+        }
+        if (rows.size() == pageSize) {
+            pageStartKeys.put(last + 1, ServiceManager.ServiceKey.of(rows.get(rows.size() - 1)));
+        }
+        final int lastShifted = last;
+        pageStartKeys.keySet().removeIf(p -> p > lastShifted + 1);
+
+        size++;
+
+        beginChange();
+        nextAdd(index, index + 1);
+        fireChange();
+
+        // Pages after a gap now show each row one position off
+        List<Integer> detached = new ArrayList<>();
+        for (int p : pages.keySet()) {
+            if (p > lastShifted) {
+                detached.add(p);
+            }
+        }
+        if (!detached.isEmpty()) {
+            beginChange();
+            for (int p : detached) {
+                dropPage(p);
+            }
+            fireChange();
+        }
+        return true;
+    }
+
+    /**
+     * Position of a new row among the loaded ones, or -1 when the rows
+     * around it are not loaded
+     */
+    private int insertionIndex(Service added) {
+        if (size == 0) {
+            return 0;
+        }
+        for (int index = 0; index <= size; index++) {
+            if (index == size) {
+                // After every row: only certain if the last one is loaded
+                return rowBefore(index) != null ? index : -1;
+            }
+            int page = index / pageSize;
+            List<Service> rows = pages.get(page);
+            if (rows == null) {
+                // Skip to the next page: this one is not loaded
+                index = (page + 1) * pageSize - 1;
+                continue;
+            }
+            int offset = index - page * pageSize;
+            if (offset >= rows.size()) {
+                return -1; // page one row short, being refilled
+            }
+            if (precedes(added, rows.get(offset))) {
+                return index == 0 || rowBefore(index) != null ? index : -1;
+            }
+        }
+        return -1;
+    }
+
+    private Service rowBefore(int index) {
+        if (index == 0) {
+            return null;
+        }
+        List<Service> rows = pages.get((index - 1) / pageSize);
+        int offset = (index - 1) % pageSize;
+        return rows != null && offset < rows.size() ? rows.get(offset) : null;
+    }
+
+    /**
+     * Grid order: date_creation DESC (rows without a date last), id_service DESC
+     */
+    private static boolean precedes(Service a, Service b) {
+        long dateA = a.getDateCreation() != null ? a.getDateCreation().getTime() : Long.MIN_VALUE;
+        long dateB = b.getDateCreation() != null ? b.getDateCreation().getTime() : Long.MIN_VALUE;
+        return dateA > dateB || dateA == dateB && a.getId() > b.getId();
+    }
+
+    /**
+     * Remove a resident row, e.g. after a delete or when it no longer
+     * matches the filters. Following resident pages are shifted by one row;
+     * the last shifted page gets its missing row from the database, and
+     * pages loaded after a gap (whose rows all moved up by one) are dropped
+     * and re-fetched on demand.
+     *
+     * @return false if the row is not currently loaded
+     */
+    public boolean removeService(int serviceId) {
+        int page = -1;
+        int offset = -1;
+        for (Map.Entry<Integer, List<Service>> entry : pages.entrySet()) {
+            List<Service> rows = entry.getValue();
+            for (int i = 0; i < rows.size(); i++) {
+                if (rows.get(i).getId() == serviceId) {
+                    page = entry.getKey();
+                    offset = i;
+                    break;
+                }
+            }
+        }
+        if (page < 0) {
+            return false;
+        }
+
+        // In-flight loads were computed with the old row positions
+        generation++;
+        pending.clear();
+
+        Service removed = pages.get(page).remove(offset);
+        int last = page;
+        while (pages.containsKey(last + 1)) {
+            List<Service> next = pages.get(last + 1);
+            if (!next.isEmpty()) {
+                pages.get(last).add(next.remove(0));
+            }
+            List<Service> current = pages.get(last);
+            if (!current.isEmpty()) {
+                pageStartKeys.put(last + 1, ServiceManager.ServiceKey.of(current.get(current.size() - 1)));
+            }
+            last++;
+        }
+        final int lastShifted = last;
+        pageStartKeys.keySet().removeIf(p -> p > lastShifted);
+
+        int removedIndex = page * pageSize + offset;
+        size--;
+
+        beginChange();
+        nextRemove(removedIndex, removed);
+        fireChange();
+
+        // Pages after a gap now show each row one position off
+        List<Integer> detached = new ArrayList<>();
+        for (int p : pages.keySet()) {
+            if (p > lastShifted) {
+                detached.add(p);
+            }
+        }
+        if (!detached.isEmpty()) {
+            beginChange();
+            for (int p : detached) {
+                dropPage(p);
+            }
+            fireChange();
+        }
+
+        // The last shifted page is now one row short unless it ends the list
+        List<Service> tail = pages.get(lastShifted);
+        if (lastShifted * pageSize + tail.size() < size) {
+            refillPage(lastShifted);
+        }
+        return true;
+    }
+
+    /**
+     * Fetch the row that follows a page one row short after a removal.
+     * Until it arrives that row shows as a placeholder; if the rows moved
+     * again meanwhile, the page is dropped and re-fetched on demand.
+     */
+    private void refillPage(int page) {
+        List<Service> rows = pages.get(page);
+        if (rows.isEmpty()) {
+            beginChange();
+            dropPage(page);
+            fireChange();
+            return;
+        }
+
+        final int gen = generation;
+        final ServiceQuery pageQuery = query;
+        final ServiceManager.ServiceKey after = ServiceManager.ServiceKey.of(rows.get(rows.size() - 1));
+
+        loader.execute(() -> {
+            try {
+                List<Service> next = serviceManager.loadServicePage(pageQuery, after, 1);
+                Platform.runLater(() -> installRefill(gen, page, next));
+            } catch (SQLException e) {
+                Platform.runLater(() -> installRefill(gen, page, null));
+            }
+        });
+    }
+
+    private void installRefill(int gen, int page, List<Service> next) {
+        List<Service> rows = pages.get(page);
+        if (rows == null || rows.size() >= pageSize || page * pageSize + rows.size() >= size) {
+            return; // evicted, reset or already complete
+        }
+
+        beginChange();
+        if (gen == generation && next != null && !next.isEmpty()) {
+            Service row = next.get(0);
+            rows.add(row);
+            pageStartKeys.put(page + 1, ServiceManager.ServiceKey.of(row));
+            nextSet(page * pageSize + rows.size() - 1, Service.PLACEHOLDER);
+        } else {
+            dropPage(page);
+        }
+        fireChange();
+    }
+
+    /**
+     * Forget a loaded page, reported like an eviction. Call between
+     * beginChange() and fireChange().
+     */
+    private void dropPage(int page) {
+        List<Service> rows = pages.remove(page);
+        int start = page * pageSize;
+        for (int i = 0; i < rows.size() && start + i < size; i++) {
+            nextSet(start + i, rows.get(i));
+        }
+    }
+
+    /**
+     * endChange() with listeners flagged as reading, see {@link #get}
+     */
+    private void fireChange() {
+        notifying = true;
+        try {
+            endChange();
+        } finally {
+            notifying = false;
+        }
+    }
+
+    /**
+     * Stop the background loader
+     */
+    public void dispose() {
+        generation++;
+        loader.shutdownNow();
+    }
+
+    private void requestPage(int page) {
+        if (resident || page < 0 || page * pageSize >= size || pages.containsKey(page) || !pending.add(page)) {
+            return;
+        }
+
+        final int gen = generation;
+        final ServiceQuery pageQuery = query;
+        final ServiceManager.ServiceKey after = pageStartKeys.get(page);
+        final boolean keyset = page == 0 || after != null;
+
+        loader.execute(() -> {
+            // The user scrolled away before this page got its turn
+            if (Math.abs(page - currentPage) > residentPages / 2) {
+                Platform.runLater(() -> {
+                    if (gen == generation) {
+                        pending.remove(page);
+                    }
+                });
+                return;
+            }
+
+            try {
+                List<Service> rows = keyset
+                        ? serviceManager.loadServicePage(pageQuery, after, pageSize)
+                        : serviceManager.loadServicePageAt(pageQuery, page * pageSize, pageSize);
+                Platform.runLater(() -> install(gen, page, rows));
+            } catch (SQLException e) {
+                Platform.runLater(() -> {
+                    if (gen == generation) {
+                        pending.remove(page);
+                        errorHandler.accept(e);
+                    }
+                });
+            }
+        });
+    }
+
+    private void install(int gen, int page, List<Service> rows) {
+        if (gen != generation) {
+            return; // stale result from before a reset
+        }
+        pending.remove(page);
+        pages.put(page, rows);
+        if (!rows.isEmpty()) {
+            pageStartKeys.put(page + 1, ServiceManager.ServiceKey.of(rows.get(rows.size() - 1)));
+        }
+
+        int start = page * pageSize;
+        int count = Math.min(rows.size(), size - start);
+
+        beginChange();
+        for (int i = 0; i < count; i++) {
+            nextSet(start + i, Service.PLACEHOLDER);
+        }
+        if (rows.size() < Math.min(pageSize, size - start)) {
+            // Fewer rows than counted (deleted meanwhile): the list ends
+            // here, rather than leaving placeholders nothing will resolve
+            truncate(start + rows.size());
+        }
+        evictFarPages();
+        fireChange();
+    }
+
+    /**
+     * Shrink the list to {@code newSize} rows, dropping the pages past it.
+     * Call between beginChange() and fireChange().
+     */
+    private void truncate(int newSize) {
+        List<Service> removed = new ArrayList<>(size - newSize);
+        for (int index = newSize; index < size; index++) {
+            List<Service> rows = pages.get(index / pageSize);
+            int offset = index % pageSize;
+            removed.add(rows != null && offset < rows.size() ? rows.get(offset) : Service.PLACEHOLDER);
+        }
+        int lastPage = newSize / pageSize;
+        pages.keySet().removeIf(p -> p > lastPage);
+        pending.removeIf(p -> p > lastPage);
+        pageStartKeys.keySet().removeIf(p -> p > lastPage);
+
+        size = newSize;
+        if (!removed.isEmpty()) {
+            nextRemove(newSize, removed);
+        }
+    }
+
+    private void evictFarPages() {
+        if (resident || pages.size() <= residentPages) {
+            return;
+        }
+        int center = currentPage;
+        Iterator<Map.Entry<Integer, List<Service>>> it = pages.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Integer, List<Service>> entry = it.next();
+            int page = entry.getKey();
+            if (Math.abs(page - center) > residentPages / 2) {
+                it.remove();
+                int start = page * pageSize;
+                List<Service> rows = entry.getValue();
+                for (int i = 0; i < rows.size() && start + i < size; i++) {
+                    nextSet(start + i, rows.get(i));
+                }
+            }
+        }
+    }
+}
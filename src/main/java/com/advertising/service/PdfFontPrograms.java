@@ -0,0 +1,64 @@
+package com.advertising.service;
+
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.font.FontProgramFactory;
+import com.itextpdf.io.font.constants.StandardFonts;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Font programs of the PDF generators, loaded once per JVM
+ *
+ * A font program is the parsed font (metrics, glyphs); the PdfFont built
+ * on it belongs to one document. The standard fonts are read-only and
+ * shared by every thread. DejaVuSans (fonts/DejaVuSans.ttf, for text the
+ * standard fonts cannot encode) is read from the classpath once, but its
+ * parser keeps a read position while a subset is embedded, so each thread
+ * parses its own program from those bytes, once.
+ */
+final class PdfFontPrograms {
+
+    static final FontProgram NORMAL = standard(StandardFonts.HELVETICA);
+    static final FontProgram BOLD = standard(StandardFonts.HELVETICA_BOLD);
+    static final FontProgram ITALIC = standard(StandardFonts.HELVETICA_OBLIQUE);
+
+    private static final byte[] UNICODE_FILE = readResource("/fonts/DejaVuSans.ttf");
+    private static final ThreadLocal<FontProgram> UNICODE = ThreadLocal.withInitial(() -> {
+        try {
+            // Not from iText's font cache, which would hand the same program to every thread
+            return FontProgramFactory.createFont(UNICODE_FILE, false);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load DejaVuSans", e);
+        }
+    });
+
+    private PdfFontPrograms() {
+    }
+
+    /**
+     * DejaVuSans program of the calling thread
+     */
+    static FontProgram unicode() {
+        return UNICODE.get();
+    }
+
+    private static FontProgram standard(String name) {
+        try {
+            return FontProgramFactory.createFont(name);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to initialize PDF fonts", e);
+        }
+    }
+
+    private static byte[] readResource(String path) {
+        try (InputStream in = PdfFontPrograms.class.getResourceAsStream(path)) {
+            if (in == null) {
+                throw new IOException("Resource not found: " + path);
+            }
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load " + path, e);
+        }
+    }
+}
@@ -2,12 +2,15 @@ package com.advertising.service;
 
 import com.advertising.controller.ServiceController.Service;
 import com.advertising.controller.ServiceController.Payment;
+import com.itextpdf.kernel.colors.Color;
 import com.itextpdf.kernel.colors.ColorConstants;
 import com.itextpdf.kernel.colors.DeviceRgb;
 import com.itextpdf.kernel.font.PdfFont;
 import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.geom.PageSize;
 import com.itextpdf.kernel.pdf.PdfDocument;
 import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.WriterProperties;
 import com.itextpdf.layout.Document;
 import com.itextpdf.layout.borders.Border;
 import com.itextpdf.layout.borders.SolidBorder;
@@ -17,19 +20,55 @@ import com.itextpdf.layout.element.Table;
 import com.itextpdf.layout.properties.TextAlignment;
 import com.itextpdf.layout.properties.UnitValue;
 import com.itextpdf.layout.properties.VerticalAlignment;
-import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.io.font.PdfEncodings;
+import com.itextpdf.kernel.events.PdfDocumentEvent;
+import com.itextpdf.kernel.exceptions.PdfException;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfDocumentInfo;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.StampingProperties;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.kernel.pdf.xobject.PdfFormXObject;
+import com.itextpdf.layout.Canvas;
+import com.itextpdf.layout.element.Div;
+import com.itextpdf.layout.layout.LayoutArea;
+import com.itextpdf.layout.layout.LayoutContext;
+import com.itextpdf.layout.layout.LayoutResult;
+import com.itextpdf.layout.renderer.IRenderer;
 import javafx.collections.ObservableList;
 
 import java.awt.Desktop;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.Locale;
 
 public class PdfReportGenerator {
 
+    /**
+     * Version of the invoice layout, part of the invoice cache key: bump it
+     * when what an invoice shows changes, so cached invoices are redone
+     */
+    public static final int TEMPLATE_VERSION = 2;
+
     private static final String COMPANY_NAME = "DECOPEINT";
     private static final String COMPANY_SUBTITLE = "Services d'Impression & Publicité Professionnelle";
     private static final String COMPANY_PHONE = "+213 XX XX XX XX";
@@ -45,14 +84,22 @@ public class PdfReportGenerator {
     private static final DeviceRgb LIGHT_GRAY = new DeviceRgb(236, 240, 241);
     private static final DeviceRgb DARK_GRAY = new DeviceRgb(127, 140, 141);
 
+    private static final float PAGE_MARGIN = 30;
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
     private static final DateTimeFormatter DATE_TIME_FORMATTER =
         DateTimeFormatter.ofPattern("dd/MM/yyyy 'à' HH:mm", Locale.FRENCH);
     private static final DateTimeFormatter DATE_FORMATTER =
         DateTimeFormatter.ofPattern("dd MMMM yyyy", Locale.FRENCH);
 
+    // Fonts of the document being written, built on the shared programs of
+    // PdfFontPrograms: a generator writes one document at a time, parallel
+    // generation uses one generator per thread
     private PdfFont fontNormal;
     private PdfFont fontBold;
     private PdfFont fontItalic;
+    private PdfFont fontUnicode;
 
     private final File outputDirectory;
 
@@ -65,19 +112,50 @@ public class PdfReportGenerator {
         if (!outputDirectory.exists()) {
             outputDirectory.mkdirs();
         }
-        initializeFonts();
     }
 
-    private void initializeFonts() {
-        try {
-            fontNormal = PdfFontFactory.createFont(StandardFonts.HELVETICA);
-            fontBold = PdfFontFactory.createFont(StandardFonts.HELVETICA_BOLD);
-            fontItalic = PdfFontFactory.createFont(StandardFonts.HELVETICA_OBLIQUE);
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to initialize PDF fonts", e);
+    public File getOutputDirectory() {
+        return outputDirectory;
+    }
+
+    private void openFonts() {
+        fontNormal = PdfFontFactory.createFont(PdfFontPrograms.NORMAL, PdfEncodings.WINANSI);
+        fontBold = PdfFontFactory.createFont(PdfFontPrograms.BOLD, PdfEncodings.WINANSI);
+        fontItalic = PdfFontFactory.createFont(PdfFontPrograms.ITALIC, PdfEncodings.WINANSI);
+        fontUnicode = null;
+    }
+
+    /**
+     * Font for text typed by users (names, addresses, descriptions):
+     * Helvetica when it can encode every character, else DejaVuSans
+     * (embedded as a subset, created on first need)
+     */
+    private PdfFont fontFor(String text) {
+        return fontFor(text, fontNormal);
+    }
+
+    /**
+     * Same as {@link #fontFor(String)}, with {@code preferred} (e.g. bold)
+     * instead of Helvetica when it can encode the text
+     */
+    private PdfFont fontFor(String text, PdfFont preferred) {
+        if (text == null
+                || text.codePoints().allMatch(c -> Character.isISOControl(c) || preferred.containsGlyph(c))) {
+            return preferred;
         }
+        if (fontUnicode == null) {
+            fontUnicode = PdfFontFactory.createFont(PdfFontPrograms.unicode(), PdfEncodings.IDENTITY_H,
+                    PdfFontFactory.EmbeddingStrategy.FORCE_EMBEDDED);
+        }
+        return fontUnicode;
     }
 
+    /**
+     * Write the invoice into the output directory as FACTURE_<id>_<timestamp>.pdf
+     *
+     * The PDF is written to a temporary file next to it and renamed once
+     * complete, so the directory never holds a half-written invoice.
+     */
     public File generateServiceInvoice(Service service,
                                       ObservableList<Payment> payments,
                                       ServiceManager.ClientDetails clientDetails) throws IOException {
@@ -87,16 +165,44 @@ public class PdfReportGenerator {
                 LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")));
 
         File pdfFile = new File(outputDirectory, fileName);
+        writeAtomically(pdfFile, out -> generateServiceInvoice(service, payments, clientDetails, out));
+        return pdfFile;
+    }
+
+    /**
+     * Render the invoice into a channel (e.g. a socket or an in-memory
+     * channel), left open
+     */
+    public void generateServiceInvoice(Service service,
+                                      ObservableList<Payment> payments,
+                                      ServiceManager.ClientDetails clientDetails,
+                                      WritableByteChannel channel) throws IOException {
+        generateServiceInvoice(service, payments, clientDetails, Channels.newOutputStream(channel));
+    }
 
-        PdfWriter writer = new PdfWriter(new FileOutputStream(pdfFile));
+    /**
+     * Render the invoice into a stream (preview, e-mail attachment, HTTP
+     * response), without touching the disk. The stream is flushed, not
+     * closed.
+     */
+    public void generateServiceInvoice(Service service,
+                                      ObservableList<Payment> payments,
+                                      ServiceManager.ClientDetails clientDetails,
+                                      OutputStream out) throws IOException {
+
+        // iText writes token by token: buffer before the caller's stream
+        BufferedOutputStream buffered = new BufferedOutputStream(out, WRITE_BUFFER_SIZE);
+        PdfWriter writer = new PdfWriter(buffered,
+            new WriterProperties().setFullCompressionMode(true));
+        writer.setCloseStream(false);
         PdfDocument pdfDoc = new PdfDocument(writer);
         Document document = new Document(pdfDoc);
-        document.setMargins(30, 30, 30, 30);
+        document.setMargins(Stationery.TOP_MARGIN, PAGE_MARGIN, Stationery.BOTTOM_MARGIN, PAGE_MARGIN);
+        openFonts();
+        Stationery.get().stampOnEveryPage(pdfDoc, fontNormal, fontBold, fontItalic);
 
         try {
-            addProfessionalHeader(document, service);
-            addHorizontalLine(document, ACCENT_COLOR, 3);
-            document.add(new Paragraph("\n"));
+            addInvoiceHeader(document, service);
 
             addClientInfoSection(document, clientDetails);
             document.add(new Paragraph("\n"));
@@ -115,77 +221,419 @@ public class PdfReportGenerator {
             addPaymentInstructions(document, service);
             document.add(new Paragraph("\n"));
 
-            addFooter(document);
+            addSignature(document);
+
+            recordInvoiceState(pdfDoc, document.getRenderer().getCurrentArea(), service, payments, clientDetails);
 
         } finally {
             document.close();
         }
+        buffered.flush();
+    }
+
+    // ==========================
+    // MISE À JOUR INCRÉMENTALE
+    // ==========================
+
+    // Document info entries written with each invoice, read back by appendPayments
+    private static final String INFO_BASE = "InvoiceBase";
+    private static final String INFO_PAYMENTS = "InvoicePayments";
+    private static final String INFO_PAYMENT_COUNT = "InvoicePaymentCount";
+    private static final String INFO_FREE_AREA = "InvoiceFreeArea";
+
+    /**
+     * Bring an invoice written by this class up to date with new payments,
+     * as an incremental update: a revision with the new payment rows and
+     * the updated totals, drawn in the free space left on its last page,
+     * is appended to the file. The original bytes are left as they are.
+     *
+     * @return false, without touching the file, when the invoice cannot be
+     *         updated this way (anything else changed, a payment was
+     *         removed, nothing new, the rows do not fit on the page, or the
+     *         file cannot be read or opened for writing): regenerate it instead
+     * @throws IOException if writing the revision failed (the file is
+     *         truncated back to its original length)
+     */
+    public boolean appendPayments(File pdfFile, Service service,
+                                  ObservableList<Payment> payments,
+                                  ServiceManager.ClientDetails clientDetails) throws IOException {
+
+        byte[] original;
+        try {
+            original = Files.readAllBytes(pdfFile.toPath());
+        } catch (IOException e) {
+            // e.g. locked by a viewer on Windows: regenerate it
+            return false;
+        }
+        ByteArrayOutputStream updated = new ByteArrayOutputStream(original.length + WRITE_BUFFER_SIZE);
+        boolean appended;
+        try (PdfDocument pdfDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(original)),
+                new PdfWriter(updated, new WriterProperties().setFullCompressionMode(true)),
+                new StampingProperties().useAppendMode())) {
+            appended = appendPayments(pdfDoc, service, payments == null ? List.of() : payments, clientDetails);
+        } catch (PdfException | NumberFormatException e) {
+            // Damaged, or its update entries are: regenerate it
+            return false;
+        }
+        if (!appended) {
+            return false;
+        }
+
+        // The output starts with the original revision, copied as is: only
+        // the new revision is written to the file
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(pdfFile.toPath(), StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            return false; // locked or read-only: regenerate it
+        }
+        try (channel) {
+            if (channel.size() != original.length) {
+                return false; // changed meanwhile
+            }
+            ByteBuffer revision = ByteBuffer.wrap(updated.toByteArray(), original.length,
+                updated.size() - original.length);
+            try {
+                channel.position(original.length);
+                while (revision.hasRemaining()) {
+                    channel.write(revision);
+                }
+                channel.force(true);
+            } catch (IOException e) {
+                channel.truncate(original.length);
+                throw e;
+            }
+        }
+        return true;
+    }
+
+    private boolean appendPayments(PdfDocument pdfDoc, Service service, List<Payment> payments,
+                                   ServiceManager.ClientDetails clientDetails) {
+        PdfDocumentInfo info = pdfDoc.getDocumentInfo();
+        String renderedCount = info.getMoreInfo(INFO_PAYMENT_COUNT);
+        String freeArea = info.getMoreInfo(INFO_FREE_AREA);
+        if (renderedCount == null || freeArea == null
+                || !InvoiceCache.baseHash(service, clientDetails).equals(info.getMoreInfo(INFO_BASE))) {
+            return false;
+        }
 
+        // Newest first: the payments already on the invoice are the oldest ones
+        int rendered = Integer.parseInt(renderedCount);
+        if (payments.size() <= rendered
+                || !InvoiceCache.paymentsHash(payments.subList(payments.size() - rendered, payments.size()))
+                    .equals(info.getMoreInfo(INFO_PAYMENTS))) {
+            return false;
+        }
+        List<Payment> added = payments.subList(0, payments.size() - rendered);
+
+        String[] area = freeArea.split(" ");
+        int pageNumber = Integer.parseInt(area[0]);
+        Rectangle free = new Rectangle(Float.parseFloat(area[1]), Float.parseFloat(area[2]),
+            Float.parseFloat(area[3]), Float.parseFloat(area[4]));
+
+        openFonts();
+        Div update = createPaymentUpdate(service, added, rendered);
+
+        PdfPage page = pdfDoc.getPage(pageNumber);
+        Canvas canvas = new Canvas(new PdfCanvas(page.newContentStreamAfter(), page.getResources(), pdfDoc), free);
+        IRenderer renderer = update.createRendererSubTree().setParent(canvas.getRenderer());
+        LayoutResult fit = renderer.layout(new LayoutContext(new LayoutArea(pageNumber, free.clone())));
+        if (fit.getStatus() != LayoutResult.FULL) {
+            return false;
+        }
+        canvas.add(update);
+        canvas.close();
+        page.setModified();
+
+        float used = fit.getOccupiedArea().getBBox().getHeight();
+        recordInvoiceState(pdfDoc,
+            new LayoutArea(pageNumber, new Rectangle(free.getX(), free.getY(), free.getWidth(), free.getHeight() - used)),
+            service, payments, clientDetails);
+        return true;
+    }
+
+    /**
+     * New payments and the amounts after them, under the original content
+     *
+     * @param rendered number of payments already in the invoice's table
+     */
+    private Div createPaymentUpdate(Service service, List<Payment> added, int rendered) {
+        Div update = new Div().setMarginTop(10);
+        update.add(new Paragraph("MISE À JOUR DU " + LocalDateTime.now().format(DATE_TIME_FORMATTER).toUpperCase(Locale.FRENCH))
+            .setFont(fontBold)
+            .setFontSize(11)
+            .setFontColor(PRIMARY_COLOR)
+            .setMarginBottom(5));
+
+        Table paymentTable = new Table(UnitValue.createPercentArray(new float[]{10, 40, 30, 20}));
+        paymentTable.setWidth(UnitValue.createPercentValue(100));
+
+        addTableHeader(paymentTable, "N°");
+        addTableHeader(paymentTable, "DATE");
+        addTableHeader(paymentTable, "MONTANT (DZD)");
+        addTableHeader(paymentTable, "MODE");
+
+        // Newest first; the numbers follow the N° 1..rendered already on
+        // the invoice, so no number appears twice
+        int number = rendered + added.size();
+        for (int i = 0; i < added.size(); i++) {
+            Payment payment = added.get(i);
+            addPaymentRow(paymentTable, String.valueOf(number - i),
+                         payment.getDateFormatted(),
+                         formatCurrency(payment.getMontant()),
+                         payment.getModePaiement(),
+                         i % 2 == 0);
+        }
+
+        addUpdateTotalRow(paymentTable, "TOTAL PAYÉ", service.getMontantPaye(), SUCCESS_COLOR);
+        addUpdateTotalRow(paymentTable, "RESTE À PAYER", service.getReste(),
+            service.getReste() > 0 ? DANGER_COLOR : SUCCESS_COLOR);
+
+        update.add(paymentTable);
+        return update;
+    }
+
+    private void addUpdateTotalRow(Table table, String label, double amount, Color bgColor) {
+        Cell labelCell = new Cell(1, 3);
+        labelCell.add(new Paragraph(label)
+            .setFont(fontBold)
+            .setFontSize(11)
+            .setFontColor(ColorConstants.WHITE)
+            .setTextAlignment(TextAlignment.RIGHT));
+        labelCell.setBackgroundColor(bgColor);
+        labelCell.setPadding(8);
+        labelCell.setBorder(Border.NO_BORDER);
+        table.addCell(labelCell);
+
+        Cell valueCell = new Cell();
+        valueCell.add(new Paragraph(formatCurrency(amount))
+            .setFont(fontBold)
+            .setFontSize(11)
+            .setFontColor(ColorConstants.WHITE)
+            .setTextAlignment(TextAlignment.RIGHT));
+        valueCell.setBackgroundColor(bgColor);
+        valueCell.setPadding(8);
+        valueCell.setBorder(Border.NO_BORDER);
+        table.addCell(valueCell);
+    }
+
+    /**
+     * What appendPayments needs to know about an invoice, kept in its
+     * document info: the inputs it was drawn from and the free space left
+     * after its content
+     */
+    private static void recordInvoiceState(PdfDocument pdfDoc, LayoutArea freeArea, Service service,
+                                           List<Payment> payments, ServiceManager.ClientDetails clientDetails) {
+        if (freeArea == null) {
+            return; // content ended exactly at a page end: never appended to
+        }
+        List<Payment> rendered = payments == null ? List.of() : payments;
+        Rectangle box = freeArea.getBBox();
+
+        PdfDocumentInfo info = pdfDoc.getDocumentInfo();
+        info.setMoreInfo(INFO_BASE, InvoiceCache.baseHash(service, clientDetails));
+        info.setMoreInfo(INFO_PAYMENTS, InvoiceCache.paymentsHash(rendered));
+        info.setMoreInfo(INFO_PAYMENT_COUNT, String.valueOf(rendered.size()));
+        info.setMoreInfo(INFO_FREE_AREA, String.format(Locale.ROOT, "%d %.2f %.2f %.2f %.2f",
+            freeArea.getPageNumber(), box.getX(), box.getY(), box.getWidth(), box.getHeight()));
+    }
+
+    /**
+     * Write a file through a temporary file in the same directory, renamed
+     * over the target once the writer succeeded (removed if it failed)
+     */
+    private static void writeAtomically(File target, PdfContent content) throws IOException {
+        Path temp = Files.createTempFile(target.getParentFile().toPath(), target.getName(), ".part");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                content.writeTo(out);
+            }
+            try {
+                Files.move(temp, target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    @FunctionalInterface
+    private interface PdfContent {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Receivables aging report: outstanding amount per client and age bucket
+     */
+    public File generateAgingReport(List<ServiceManager.ClientAging> rows) throws IOException {
+        String fileName = String.format("BALANCE_AGEE_%s.pdf",
+                LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")));
+
+        File pdfFile = new File(outputDirectory, fileName);
+        writeAtomically(pdfFile, out -> generateAgingReport(rows, out));
         return pdfFile;
     }
 
-    private void addProfessionalHeader(Document document, Service service) {
-        Table headerTable = new Table(UnitValue.createPercentArray(new float[]{60, 40}));
+    private void generateAgingReport(List<ServiceManager.ClientAging> rows, OutputStream out) throws IOException {
+        BufferedOutputStream buffered = new BufferedOutputStream(out, WRITE_BUFFER_SIZE);
+        PdfWriter writer = new PdfWriter(buffered);
+        writer.setCloseStream(false);
+        PdfDocument pdfDoc = new PdfDocument(writer);
+        Document document = new Document(pdfDoc, PageSize.A4.rotate());
+        document.setMargins(30, 30, 30, 30);
+        openFonts();
+
+        try {
+            addReportHeader(document, "BALANCE ÂGÉE",
+                "Créances clients au " + LocalDateTime.now().format(DATE_FORMATTER));
+            addHorizontalLine(document, ACCENT_COLOR, 3);
+            document.add(new Paragraph("\n"));
+
+            addAgingTable(document, rows);
+            document.add(new Paragraph("\n"));
+
+            addHorizontalLine(document, LIGHT_GRAY, 0.5f);
+            document.add(new Paragraph(String.format(
+                    "Ancienneté calculée depuis la date de création du service - Document généré le %s",
+                    LocalDateTime.now().format(DATE_TIME_FORMATTER)))
+                .setFont(fontItalic)
+                .setFontSize(7)
+                .setFontColor(ColorConstants.GRAY)
+                .setTextAlignment(TextAlignment.CENTER)
+                .setMarginTop(5));
+
+        } finally {
+            document.close();
+        }
+        buffered.flush();
+    }
+
+    private void addReportHeader(Document document, String title, String subtitle) {
+        Table headerTable = new Table(UnitValue.createPercentArray(new float[]{50, 50}));
         headerTable.setWidth(UnitValue.createPercentValue(100));
 
         Cell companyCell = new Cell();
         companyCell.setBorder(Border.NO_BORDER);
-        companyCell.setVerticalAlignment(VerticalAlignment.TOP);
-
-        Paragraph companyName = new Paragraph(COMPANY_NAME)
+        companyCell.add(new Paragraph(COMPANY_NAME)
             .setFont(fontBold)
-            .setFontSize(26)
+            .setFontSize(22)
             .setFontColor(PRIMARY_COLOR)
-            .setMarginBottom(2);
-        companyCell.add(companyName);
-
-        Paragraph companySubtitle = new Paragraph(COMPANY_SUBTITLE)
+            .setMarginBottom(2));
+        companyCell.add(new Paragraph(COMPANY_SUBTITLE)
             .setFont(fontItalic)
-            .setFontSize(11)
-            .setFontColor(DARK_GRAY)
-            .setMarginBottom(8);
-        companyCell.add(companySubtitle);
+            .setFontSize(10)
+            .setFontColor(DARK_GRAY));
+        headerTable.addCell(companyCell);
 
-        Paragraph contactInfo = new Paragraph()
+        Cell titleCell = new Cell();
+        titleCell.setBorder(Border.NO_BORDER);
+        titleCell.setTextAlignment(TextAlignment.RIGHT);
+        titleCell.add(new Paragraph(title)
+            .setFont(fontBold)
+            .setFontSize(24)
+            .setFontColor(ACCENT_COLOR)
+            .setMarginBottom(3));
+        titleCell.add(new Paragraph(subtitle)
             .setFont(fontNormal)
-            .setFontSize(9)
-            .setFontColor(ColorConstants.DARK_GRAY)
-            .add("Tél: " + COMPANY_PHONE + "\n")
-            .add("Email: " + COMPANY_EMAIL + "\n")
-            .add("Adresse: " + COMPANY_ADDRESS + "\n")
-            .add("Web: " + COMPANY_WEBSITE);
-        companyCell.add(contactInfo);
+            .setFontSize(10)
+            .setFontColor(DARK_GRAY));
+        headerTable.addCell(titleCell);
 
-        headerTable.addCell(companyCell);
+        document.add(headerTable);
+    }
+
+    private void addAgingTable(Document document, List<ServiceManager.ClientAging> rows) {
+        Table agingTable = new Table(UnitValue.createPercentArray(new float[]{28, 8, 13, 13, 13, 12, 13}));
+        agingTable.setWidth(UnitValue.createPercentValue(100));
+
+        addTableHeader(agingTable, "CLIENT");
+        addTableHeader(agingTable, "SERVICES");
+        addTableHeader(agingTable, "0-30 JOURS");
+        addTableHeader(agingTable, "31-60 JOURS");
+        addTableHeader(agingTable, "61-90 JOURS");
+        addTableHeader(agingTable, "+90 JOURS");
+        addTableHeader(agingTable, "TOTAL (DZD)");
+
+        double[] totals = new double[5];
+        int count = 0;
+        boolean alternate = false;
+        for (ServiceManager.ClientAging row : rows) {
+            Color bgColor = alternate ? ColorConstants.WHITE : LIGHT_GRAY;
+            alternate = !alternate;
+
+            addPaymentCell(agingTable, row.getClient(), TextAlignment.LEFT, bgColor);
+            addPaymentCell(agingTable, String.valueOf(row.getServiceCount()), TextAlignment.CENTER, bgColor);
+            addPaymentCell(agingTable, formatCurrency(row.getUpTo30()), TextAlignment.RIGHT, bgColor);
+            addPaymentCell(agingTable, formatCurrency(row.getFrom31To60()), TextAlignment.RIGHT, bgColor);
+            addPaymentCell(agingTable, formatCurrency(row.getFrom61To90()), TextAlignment.RIGHT, bgColor);
+            addPaymentCell(agingTable, formatCurrency(row.getOver90()), TextAlignment.RIGHT, bgColor);
+            addPaymentCell(agingTable, formatCurrency(row.getTotal()), TextAlignment.RIGHT, bgColor);
+
+            count += row.getServiceCount();
+            totals[0] += row.getUpTo30();
+            totals[1] += row.getFrom31To60();
+            totals[2] += row.getFrom61To90();
+            totals[3] += row.getOver90();
+            totals[4] += row.getTotal();
+        }
+
+        addAgingTotalCell(agingTable, "TOTAL", TextAlignment.LEFT, PRIMARY_COLOR);
+        addAgingTotalCell(agingTable, String.valueOf(count), TextAlignment.CENTER, PRIMARY_COLOR);
+        for (int i = 0; i < 4; i++) {
+            addAgingTotalCell(agingTable, formatCurrency(totals[i]), TextAlignment.RIGHT,
+                i == 3 && totals[i] > 0 ? DANGER_COLOR : PRIMARY_COLOR);
+        }
+        addAgingTotalCell(agingTable, formatCurrency(totals[4]), TextAlignment.RIGHT, PRIMARY_COLOR);
+
+        document.add(agingTable);
+    }
+
+    private void addAgingTotalCell(Table table, String text, TextAlignment alignment, Color bgColor) {
+        Cell cell = new Cell();
+        cell.add(new Paragraph(text)
+            .setFont(fontBold)
+            .setFontSize(10)
+            .setFontColor(ColorConstants.WHITE)
+            .setTextAlignment(alignment));
+        cell.setBackgroundColor(bgColor);
+        cell.setPadding(8);
+        cell.setBorder(Border.NO_BORDER);
+        table.addCell(cell);
+    }
 
-        Cell invoiceCell = new Cell();
-        invoiceCell.setBorder(Border.NO_BORDER);
-        invoiceCell.setVerticalAlignment(VerticalAlignment.TOP);
-        invoiceCell.setTextAlignment(TextAlignment.RIGHT);
+    /**
+     * Invoice title, number and date, in the right part of the header band
+     * of the first page (the company block on the left is the stationery)
+     */
+    private void addInvoiceHeader(Document document, Service service) {
+        float width = PageSize.A4.getWidth() - 2 * PAGE_MARGIN;
+        Div invoiceBlock = new Div()
+            .setTextAlignment(TextAlignment.RIGHT)
+            .setHeight(Stationery.HEADER_HEIGHT);
 
-        Paragraph invoiceTitle = new Paragraph("FACTURE")
+        invoiceBlock.add(new Paragraph("FACTURE")
             .setFont(fontBold)
             .setFontSize(32)
             .setFontColor(ACCENT_COLOR)
-            .setMarginBottom(5);
-        invoiceCell.add(invoiceTitle);
+            .setMarginBottom(5));
 
-        Paragraph invoiceNumber = new Paragraph("N° " + String.format("%06d", service.getId()))
+        invoiceBlock.add(new Paragraph("N° " + String.format("%06d", service.getId()))
             .setFont(fontBold)
             .setFontSize(16)
             .setFontColor(PRIMARY_COLOR)
-            .setMarginBottom(3);
-        invoiceCell.add(invoiceNumber);
+            .setMarginBottom(3));
 
-        Paragraph invoiceDate = new Paragraph("Date: " + LocalDateTime.now().format(DATE_FORMATTER))
+        invoiceBlock.add(new Paragraph("Date: " + LocalDateTime.now().format(DATE_FORMATTER))
             .setFont(fontNormal)
             .setFontSize(10)
-            .setFontColor(DARK_GRAY);
-        invoiceCell.add(invoiceDate);
-
-        headerTable.addCell(invoiceCell);
+            .setFontColor(DARK_GRAY));
 
-        document.add(headerTable);
+        // Fixed positions are the bottom-left corner of the element
+        invoiceBlock.setFixedPosition(1, PAGE_MARGIN + width * 0.6f,
+            PageSize.A4.getHeight() - PAGE_MARGIN - Stationery.HEADER_HEIGHT, width * 0.4f);
+        document.add(invoiceBlock);
     }
 
     private void addHorizontalLine(Document document, DeviceRgb color, float thickness) {
@@ -232,7 +680,7 @@ public class PdfReportGenerator {
         }
 
         contentCell.add(new Paragraph(clientInfo.toString())
-            .setFont(fontNormal)
+            .setFont(fontFor(clientInfo.toString()))
             .setFontSize(10)
             .setFontColor(ColorConstants.BLACK));
         clientTable.addCell(contentCell);
@@ -277,7 +725,7 @@ public class PdfReportGenerator {
 
         Cell valueCell = new Cell();
         valueCell.add(new Paragraph(value)
-            .setFont(fontNormal)
+            .setFont(fontFor(value))
             .setFontSize(10)
             .setFontColor(ColorConstants.BLACK));
         valueCell.setPadding(8);
@@ -379,15 +827,15 @@ public class PdfReportGenerator {
     }
 
     private void addFinancialRow(Table table, String label, double amount,
-                                 DeviceRgb backgroundColor, boolean isBold) {
+                                 Color backgroundColor, boolean isBold) {
         addFinancialRow(table, label, amount, backgroundColor, isBold, ColorConstants.BLACK);
     }
 
     private void addFinancialRow(Table table, String label, double amount,
-                                 DeviceRgb backgroundColor, boolean isBold, DeviceRgb textColor) {
+                                 Color backgroundColor, boolean isBold, Color textColor) {
         Cell labelCell = new Cell();
         Paragraph labelPara = new Paragraph(label)
-            .setFont(isBold ? fontBold : fontNormal)
+            .setFont(fontFor(label, isBold ? fontBold : fontNormal))
             .setFontSize(isBold ? 11 : 10)
             .setFontColor(ColorConstants.BLACK);
         labelCell.add(labelPara);
@@ -476,7 +924,7 @@ public class PdfReportGenerator {
 
     private void addPaymentRow(Table table, String num, String date,
                                String amount, String mode, boolean alternate) {
-        DeviceRgb bgColor = alternate ? ColorConstants.WHITE : LIGHT_GRAY;
+        Color bgColor = alternate ? ColorConstants.WHITE : LIGHT_GRAY;
 
         addPaymentCell(table, num, TextAlignment.CENTER, bgColor);
         addPaymentCell(table, date, TextAlignment.LEFT, bgColor);
@@ -484,10 +932,11 @@ public class PdfReportGenerator {
         addPaymentCell(table, mode, TextAlignment.LEFT, bgColor);
     }
 
-    private void addPaymentCell(Table table, String text, TextAlignment alignment, DeviceRgb bgColor) {
+    private void addPaymentCell(Table table, String text, TextAlignment alignment, Color bgColor) {
         Cell cell = new Cell();
+        // Client names and payment modes are typed by users
         cell.add(new Paragraph(text)
-            .setFont(fontNormal)
+            .setFont(fontFor(text))
             .setFontSize(9)
             .setFontColor(ColorConstants.BLACK)
             .setTextAlignment(alignment));
@@ -531,27 +980,11 @@ public class PdfReportGenerator {
         document.add(instructionsTable);
     }
 
-    private void addFooter(Document document) {
-        addHorizontalLine(document, LIGHT_GRAY, 1);
-
-        Paragraph thankYou = new Paragraph("Merci pour votre confiance")
-            .setFont(fontBold)
-            .setFontSize(13)
-            .setFontColor(PRIMARY_COLOR)
-            .setTextAlignment(TextAlignment.CENTER)
-            .setMarginTop(8)
-            .setMarginBottom(5);
-        document.add(thankYou);
-
-        Paragraph contact = new Paragraph(
-            "Pour toute question: " + COMPANY_PHONE + " | " + COMPANY_EMAIL + " | " + COMPANY_WEBSITE)
-            .setFont(fontNormal)
-            .setFontSize(8)
-            .setFontColor(DARK_GRAY)
-            .setTextAlignment(TextAlignment.CENTER)
-            .setMarginBottom(10);
-        document.add(contact);
-
+    /**
+     * Signature block and generation date, after the content (the thanks
+     * and contact lines are in the stationery footer)
+     */
+    private void addSignature(Document document) {
         Table signatureTable = new Table(UnitValue.createPercentArray(new float[]{50, 50}));
         signatureTable.setWidth(UnitValue.createPercentValue(100));
 
@@ -604,6 +1037,144 @@ public class PdfReportGenerator {
         }
     }
 
+    /**
+     * Invoice stationery: the company block and accent line at the top and
+     * the thanks and contact lines at the bottom, the same on every invoice.
+     *
+     * They are laid out once per JVM; only the resulting content stream and
+     * the resource names of its three fonts are kept. Each invoice wraps that
+     * content in a Form XObject bound to its own fonts (no layout, no font
+     * duplicated) and draws it under the content of every page, so it is
+     * stored once per file whatever the page count.
+     */
+    private static final class Stationery {
+
+        /** Height of the header band (company block) below the top margin */
+        static final float HEADER_HEIGHT = 130;
+        /** Height of the footer band above the bottom margin */
+        static final float FOOTER_HEIGHT = 50;
+
+        static final float TOP_MARGIN = PAGE_MARGIN + HEADER_HEIGHT + 20;
+        static final float BOTTOM_MARGIN = PAGE_MARGIN + FOOTER_HEIGHT + 10;
+
+        private static Stationery instance;
+
+        private final byte[] content;
+        private final PdfName normalName;
+        private final PdfName boldName;
+        private final PdfName italicName;
+
+        private Stationery(byte[] content, PdfName normalName, PdfName boldName, PdfName italicName) {
+            this.content = content;
+            this.normalName = normalName;
+            this.boldName = boldName;
+            this.italicName = italicName;
+        }
+
+        static synchronized Stationery get() {
+            if (instance == null) {
+                instance = render();
+            }
+            return instance;
+        }
+
+        /**
+         * Draw the stationery under every page of the document, with the
+         * document's own fonts (also used by its content)
+         */
+        void stampOnEveryPage(PdfDocument pdfDoc, PdfFont normal, PdfFont bold, PdfFont italic) {
+            PdfDictionary fonts = new PdfDictionary();
+            fonts.put(normalName, pdfDoc.addFont(normal).getPdfObject());
+            fonts.put(boldName, pdfDoc.addFont(bold).getPdfObject());
+            fonts.put(italicName, pdfDoc.addFont(italic).getPdfObject());
+            PdfDictionary resources = new PdfDictionary();
+            resources.put(PdfName.Font, fonts);
+
+            PdfFormXObject stationery = new PdfFormXObject(PageSize.A4);
+            stationery.getPdfObject().setData(content);
+            stationery.put(PdfName.Resources, resources);
+
+            // Drawn when the page starts, at the head of its (still empty)
+            // content stream, so the layout writes over it
+            pdfDoc.addEventHandler(PdfDocumentEvent.START_PAGE, event ->
+                new PdfCanvas(((PdfDocumentEvent) event).getPage()).addXObjectAt(stationery, 0, 0));
+        }
+
+        private static Stationery render() {
+            PdfDocument pdfDoc = new PdfDocument(new PdfWriter(new ByteArrayOutputStream()));
+            PdfFont normal = PdfFontFactory.createFont(PdfFontPrograms.NORMAL, PdfEncodings.WINANSI);
+            PdfFont bold = PdfFontFactory.createFont(PdfFontPrograms.BOLD, PdfEncodings.WINANSI);
+            PdfFont italic = PdfFontFactory.createFont(PdfFontPrograms.ITALIC, PdfEncodings.WINANSI);
+
+            PdfFormXObject form = new PdfFormXObject(PageSize.A4);
+            PdfCanvas pdfCanvas = new PdfCanvas(form, pdfDoc);
+            float width = PageSize.A4.getWidth() - 2 * PAGE_MARGIN;
+            float headerBottom = PageSize.A4.getHeight() - PAGE_MARGIN - HEADER_HEIGHT;
+
+            try (Canvas header = new Canvas(pdfCanvas,
+                    new Rectangle(PAGE_MARGIN, headerBottom, width * 0.6f, HEADER_HEIGHT))) {
+                header.add(new Paragraph(COMPANY_NAME)
+                    .setFont(bold)
+                    .setFontSize(26)
+                    .setFontColor(PRIMARY_COLOR)
+                    .setMarginTop(0)
+                    .setMarginBottom(2));
+                header.add(new Paragraph(COMPANY_SUBTITLE)
+                    .setFont(italic)
+                    .setFontSize(11)
+                    .setFontColor(DARK_GRAY)
+                    .setMarginBottom(8));
+                header.add(new Paragraph()
+                    .setFont(normal)
+                    .setFontSize(9)
+                    .setFontColor(ColorConstants.DARK_GRAY)
+                    .add("Tél: " + COMPANY_PHONE + "\n")
+                    .add("Email: " + COMPANY_EMAIL + "\n")
+                    .add("Adresse: " + COMPANY_ADDRESS + "\n")
+                    .add("Web: " + COMPANY_WEBSITE));
+            }
+
+            pdfCanvas.setStrokeColor(ACCENT_COLOR)
+                .setLineWidth(3)
+                .moveTo(PAGE_MARGIN, headerBottom - 6)
+                .lineTo(PAGE_MARGIN + width, headerBottom - 6)
+                .stroke();
+
+            pdfCanvas.setStrokeColor(LIGHT_GRAY)
+                .setLineWidth(1)
+                .moveTo(PAGE_MARGIN, PAGE_MARGIN + FOOTER_HEIGHT)
+                .lineTo(PAGE_MARGIN + width, PAGE_MARGIN + FOOTER_HEIGHT)
+                .stroke();
+
+            try (Canvas footer = new Canvas(pdfCanvas,
+                    new Rectangle(PAGE_MARGIN, PAGE_MARGIN, width, FOOTER_HEIGHT - 2))) {
+                footer.add(new Paragraph("Merci pour votre confiance")
+                    .setFont(bold)
+                    .setFontSize(13)
+                    .setFontColor(PRIMARY_COLOR)
+                    .setTextAlignment(TextAlignment.CENTER)
+                    .setMarginTop(4)
+                    .setMarginBottom(3));
+                footer.add(new Paragraph(
+                    "Pour toute question: " + COMPANY_PHONE + " | " + COMPANY_EMAIL + " | " + COMPANY_WEBSITE)
+                    .setFont(normal)
+                    .setFontSize(8)
+                    .setFontColor(DARK_GRAY)
+                    .setTextAlignment(TextAlignment.CENTER));
+            }
+
+            Stationery stationery = new Stationery(form.getPdfObject().getBytes(),
+                form.getResources().getResourceName(normal),
+                form.getResources().getResourceName(bold),
+                form.getResources().getResourceName(italic));
+
+            // The scratch document only served the layout
+            pdfDoc.addNewPage();
+            pdfDoc.close();
+            return stationery;
+        }
+    }
+
     public void openPdfFile(File pdfFile) throws IOException {
         if (Desktop.isDesktopSupported()) {
             Desktop.getDesktop().open(pdfFile);
@@ -0,0 +1,49 @@
+package com.advertising.service;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Last computed receivables aging report
+ *
+ * The report only changes when an amount does (payment, new or deleted
+ * service: see ServiceManager) or when the day changes, since the buckets
+ * are relative to today. Until then {@link #get()} returns the rows of the
+ * previous query.
+ */
+public final class ReceivablesAgingCache {
+
+    /** Bumped by every invalidation, without waiting for a load in progress */
+    private static final AtomicLong generation = new AtomicLong();
+
+    private static List<ServiceManager.ClientAging> rows;
+    private static long rowsGeneration = -1;
+    private static LocalDate computedOn;
+
+    private ReceivablesAgingCache() {
+    }
+
+    /**
+     * Aging per client, from the cache or from MySQL if it is stale
+     */
+    public static synchronized List<ServiceManager.ClientAging> get() throws SQLException {
+        long current = generation.get();
+        LocalDate today = LocalDate.now();
+        if (rows == null || rowsGeneration != current || !today.equals(computedOn)) {
+            // A mutation during the query bumps the generation: the next call reloads
+            rows = List.copyOf(new ServiceManager().loadReceivablesAging());
+            rowsGeneration = current;
+            computedOn = today;
+        }
+        return rows;
+    }
+
+    /**
+     * Amounts changed: the next {@link #get()} queries again
+     */
+    public static void invalidate() {
+        generation.incrementAndGet();
+    }
+}
@@ -0,0 +1,112 @@
+package com.advertising.service;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Id and name lookups over one of the repository's reference lists
+ * (clients, service types)
+ *
+ * The list is kept sorted by name by {@link AppRepository}; this keeps, in
+ * step with each change to it, an id -> row map, a case-insensitive
+ * name -> id map and the list of names in the same order (for the combos
+ * and filter bars). An insert, rename or delete updates the entries of the
+ * rows involved only.
+ */
+public class ReferenceLookup<T> implements ListChangeListener<T> {
+
+    private final Function<T, Integer> idOf;
+    private final Function<T, String> nameOf;
+
+    private final Map<Integer, T> byId = new HashMap<>();
+    private final Map<String, Integer> idByName = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final ObservableList<String> names = FXCollections.observableArrayList();
+    private final ObservableList<String> namesView = FXCollections.unmodifiableObservableList(names);
+
+    public ReferenceLookup(ObservableList<T> rows, Function<T, Integer> idOf, Function<T, String> nameOf) {
+        this.idOf = idOf;
+        this.nameOf = nameOf;
+        rows.forEach(this::index);
+        rows.forEach(row -> names.add(nameOf.apply(row)));
+        rows.addListener(this);
+    }
+
+    /**
+     * Names in list order (sorted), updated in place
+     */
+    public ObservableList<String> getNames() {
+        return namesView;
+    }
+
+    /**
+     * @return the row with this id, or null
+     */
+    public T get(int id) {
+        return byId.get(id);
+    }
+
+    /**
+     * @return the id of the row with this name (ignoring case), or null
+     */
+    public Integer findId(String name) {
+        return name == null ? null : idByName.get(name.trim());
+    }
+
+    @Override
+    public void onChanged(Change<? extends T> c) {
+        while (c.next()) {
+            if (c.wasPermutated()) {
+                List<String> reordered = new ArrayList<>();
+                c.getList().forEach(row -> reordered.add(nameOf.apply(row)));
+                names.setAll(reordered);
+                continue;
+            }
+            for (T row : c.getRemoved()) {
+                unindex(row);
+            }
+            List<String> added = new ArrayList<>(c.getAddedSize());
+            for (T row : c.getAddedSubList()) {
+                index(row);
+                added.add(nameOf.apply(row));
+            }
+            if (c.wasReplaced() && c.getRemovedSize() == added.size()) {
+                // Same rows updated in place (e.g. a service count): only a
+                // changed name touches the names list and its listeners
+                for (int i = 0; i < added.size(); i++) {
+                    if (!names.get(c.getFrom() + i).equals(added.get(i))) {
+                        names.set(c.getFrom() + i, added.get(i));
+                    }
+                }
+                continue;
+            }
+            if (c.wasRemoved()) {
+                names.remove(c.getFrom(), c.getFrom() + c.getRemovedSize());
+            }
+            if (c.wasAdded()) {
+                names.addAll(c.getFrom(), added);
+            }
+        }
+    }
+
+    private void index(T row) {
+        byId.put(idOf.apply(row), row);
+        idByName.put(nameOf.apply(row), idOf.apply(row));
+    }
+
+    private void unindex(T row) {
+        Integer id = idOf.apply(row);
+        // The row may already have been replaced under the same id (rename, count change)
+        if (byId.get(id) == row) {
+            byId.remove(id);
+        }
+        idByName.remove(nameOf.apply(row), id);
+    }
+}
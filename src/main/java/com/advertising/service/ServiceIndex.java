@@ -0,0 +1,262 @@
+package com.advertising.service;
+
+import com.advertising.controller.ServiceController.Service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * In-memory index of every service, so the grid filters answer without a
+ * database round trip.
+ *
+ * Rows are kept in grid order (date_creation DESC, id_service DESC), so
+ * the position array doubles as the date-sorted array: a date range is two
+ * binary searches giving a contiguous run of positions. Client, type,
+ * etat_paiement and statut_service each have one bitmap per value; a
+ * filter is the AND of at most four bitmaps and the date run.
+ *
+ * Payments, status changes and deletes are applied in place with
+ * {@link #update} / {@link #remove}. A new service ({@link #add}) shifts
+ * the positions after it, so the arrays and bitmaps are rebuilt from the
+ * rows already in memory.
+ *
+ * Not thread-safe: build it anywhere, then use it from a single thread.
+ */
+public class ServiceIndex {
+
+    /**
+     * Above this many services the grid keeps querying MySQL page by page.
+     * The index holds every row in full (about 1 KB each with its strings),
+     * so this bounds it to a few tens of MB; larger tables keep the bounded
+     * memory of the paged grid and pay a query per filter change instead.
+     */
+    public static final int MAX_INDEXED_ROWS = 20_000;
+
+    private Service[] rows;
+    private long[] dates;            // epoch millis, descending; Long.MIN_VALUE for null
+    private int datedCount;          // rows with a date (nulls sort last)
+    private final Map<Integer, Integer> positions = new HashMap<>();
+    private BitSet live;
+
+    private final Map<String, BitSet> byClient = new HashMap<>();
+    private final Map<String, BitSet> byType = new HashMap<>();
+    private final Map<String, BitSet> byEtatPaiement = new HashMap<>();
+    private final Map<String, BitSet> byStatutService = new HashMap<>();
+
+    /**
+     * @param services every service, in grid order
+     */
+    public ServiceIndex(List<Service> services) {
+        build(services);
+    }
+
+    private void build(List<Service> services) {
+        int n = services.size();
+        rows = services.toArray(new Service[0]);
+        dates = new long[n];
+        live = new BitSet(n);
+        live.set(0, n);
+        positions.clear();
+        byClient.clear();
+        byType.clear();
+        byEtatPaiement.clear();
+        byStatutService.clear();
+
+        int dated = 0;
+        for (int i = 0; i < n; i++) {
+            Service service = rows[i];
+            dates[i] = dateOf(service);
+            if (service.getDateCreation() != null) {
+                dated++;
+            }
+            positions.put(service.getId(), i);
+            addBits(i, service);
+        }
+        datedCount = dated;
+    }
+
+    public int size() {
+        return live.cardinality();
+    }
+
+    /**
+     * Positions of the live rows matching {@code query}
+     */
+    public BitSet select(ServiceQuery query) {
+        BitSet result = (BitSet) live.clone();
+        if (query.isUnfiltered()) {
+            return result;
+        }
+
+        if (query.getDateFrom() != null || query.getDateTo() != null) {
+            int from = 0;
+            int to = datedCount;
+            if (query.getDateTo() != null) {
+                // first position strictly before the end of the day
+                from = firstBelow(Timestamp.valueOf(query.getDateTo().plusDays(1).atStartOfDay()).getTime());
+            }
+            if (query.getDateFrom() != null) {
+                // first position before the start of the range
+                to = Math.min(to, firstBelow(Timestamp.valueOf(query.getDateFrom().atStartOfDay()).getTime()));
+            }
+            if (from > 0) {
+                result.clear(0, from);
+            }
+            if (to < rows.length) {
+                result.clear(Math.max(to, from), rows.length);
+            }
+        }
+
+        and(result, byClient, query.getClientName());
+        and(result, byType, query.getTypeName());
+        and(result, byEtatPaiement, query.getEtatPaiement());
+        and(result, byStatutService, query.getStatutService());
+        return result;
+    }
+
+    /**
+     * Selected rows in grid order
+     */
+    public List<Service> rows(BitSet selection) {
+        List<Service> result = new ArrayList<>(selection.cardinality());
+        for (int i = selection.nextSetBit(0); i >= 0; i = selection.nextSetBit(i + 1)) {
+            result.add(rows[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Totals of the selected rows
+     */
+    public ServiceManager.ServiceStatistics statistics(BitSet selection) {
+        double amount = 0;
+        double paid = 0;
+        double remaining = 0;
+        int count = 0;
+        for (int i = selection.nextSetBit(0); i >= 0; i = selection.nextSetBit(i + 1)) {
+            Service service = rows[i];
+            amount += service.getPrixTotal();
+            paid += service.getMontantPaye();
+            remaining += service.getReste();
+            count++;
+        }
+        return new ServiceManager.ServiceStatistics(amount, paid, remaining, count);
+    }
+
+    /**
+     * Replace a row after a mutation, moving its bits if an attribute changed
+     *
+     * @return false if the row cannot be patched (unknown id or new date):
+     *         the index must be rebuilt
+     */
+    public boolean update(Service updated) {
+        Integer position = positions.get(updated.getId());
+        if (position == null || !live.get(position)) {
+            return false;
+        }
+        Service old = rows[position];
+        if (!Objects.equals(old.getDateCreation(), updated.getDateCreation())) {
+            return false;
+        }
+        removeBits(position, old);
+        addBits(position, updated);
+        rows[position] = updated;
+        return true;
+    }
+
+    /**
+     * Insert a new service at its place in grid order. The rows after it
+     * move by one position: everything is rebuilt from the live rows, in
+     * memory (O(rows), no query).
+     */
+    public void add(Service service) {
+        if (positions.containsKey(service.getId())) {
+            if (update(service)) {
+                return;
+            }
+            remove(service.getId());
+        }
+
+        long date = dateOf(service);
+        List<Service> all = new ArrayList<>(size() + 1);
+        boolean placed = false;
+        for (int i = live.nextSetBit(0); i >= 0; i = live.nextSetBit(i + 1)) {
+            if (!placed && (date > dates[i] || date == dates[i] && service.getId() > rows[i].getId())) {
+                all.add(service);
+                placed = true;
+            }
+            all.add(rows[i]);
+        }
+        if (!placed) {
+            all.add(service);
+        }
+        build(all);
+    }
+
+    public void remove(int serviceId) {
+        Integer position = positions.remove(serviceId);
+        if (position != null) {
+            live.clear(position);
+            removeBits(position, rows[position]);
+            rows[position] = null;
+        }
+    }
+
+    /**
+     * First position whose date is strictly below {@code millis} (dates are descending)
+     */
+    private int firstBelow(long millis) {
+        int low = 0;
+        int high = datedCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (dates[mid] >= millis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static long dateOf(Service service) {
+        Timestamp date = service.getDateCreation();
+        return date != null ? date.getTime() : Long.MIN_VALUE;
+    }
+
+    private static void and(BitSet result, Map<String, BitSet> bitmaps, String value) {
+        if (value == null) {
+            return;
+        }
+        BitSet matching = bitmaps.get(value);
+        if (matching == null) {
+            result.clear();
+        } else {
+            result.and(matching);
+        }
+    }
+
+    private void addBits(int position, Service service) {
+        bitmap(byClient, service, Service::getClient).set(position);
+        bitmap(byType, service, Service::getType).set(position);
+        bitmap(byEtatPaiement, service, Service::getStatutPaiement).set(position);
+        bitmap(byStatutService, service, Service::getStatutService).set(position);
+    }
+
+    private void removeBits(int position, Service service) {
+        bitmap(byClient, service, Service::getClient).clear(position);
+        bitmap(byType, service, Service::getType).clear(position);
+        bitmap(byEtatPaiement, service, Service::getStatutPaiement).clear(position);
+        bitmap(byStatutService, service, Service::getStatutService).clear(position);
+    }
+
+    private static BitSet bitmap(Map<String, BitSet> bitmaps, Service service, Function<Service, String> attribute) {
+        return bitmaps.computeIfAbsent(attribute.apply(service), key -> new BitSet());
+    }
+}
@@ -3,11 +3,24 @@ package com.advertising.service;
 import com.advertising.controller.ServiceController.Service;
 import com.advertising.controller.ServiceController.Payment;
 import com.advertising.util.DatabaseConnection;
+import com.advertising.util.StatementCanceller;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
 import java.sql.*;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Service layer for handling business logic and database operations
@@ -15,52 +28,418 @@ import java.time.LocalDate;
  */
 public class ServiceManager {
 
+    /** Rows fetched per page by the lazily loaded service grid */
+    public static final int DEFAULT_PAGE_SIZE = 100;
+
+    /** Ids per IN (...) list in the bulk loads */
+    private static final int IN_CHUNK = 1000;
+
+    private static final String SERVICE_SELECT = """
+            SELECT s.id_service, c.nom AS client,
+                   ts.nom_type AS type_service,
+                   s.description,
+                   s.prix_total, s.montant_paye,
+                   s.reste_a_payer, s.etat_paiement,
+                   s.statut_service,
+                   s.date_creation
+            FROM service s
+            JOIN client c ON s.id_client = c.id_client
+            JOIN type_service ts ON s.id_type_service = ts.id_type_service
+            """;
+
+    // Keyset order, served by idx_service_date_id (date_creation, id_service)
+    private static final String SERVICE_ORDER = " ORDER BY s.date_creation DESC, s.id_service DESC";
+
+    // Payment added to a service, refused (0 rows) if it would exceed the price.
+    // Shared by updatePayment and recordPayments; bind with bindPaymentUpdate.
+    // MySQL evaluates SET assignments left to right: etat_paiement sees the new montant_paye.
+    // The 0.01 margin is the same floating point tolerance as calculatePaymentStatus.
+    private static final String PAYMENT_UPDATE_SQL = """
+            UPDATE service
+            SET montant_paye = montant_paye + ?,
+                etat_paiement = CASE
+                    WHEN ABS(prix_total - montant_paye) < 0.01 THEN 'PAYE'
+                    WHEN montant_paye > 0 THEN 'PARTIELLEMENT_PAYE'
+                    ELSE 'NON_PAYE'
+                END
+            WHERE id_service = ?
+              AND montant_paye + ? <= prix_total + 0.01
+            """;
+
     /**
      * Load all services from database
      */
     public ObservableList<Service> loadAllServices() throws SQLException {
         ObservableList<Service> services = FXCollections.observableArrayList();
 
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(SERVICE_SELECT + SERVICE_ORDER);
+             ResultSet rs = ps.executeQuery()) {
+
+            while (rs.next()) {
+                services.add(mapService(rs));
+            }
+        }
+
+        return services;
+    }
+
+    /**
+     * Visit every service matching {@code query} without materializing them,
+     * for exports and batch jobs over the full history.
+     *
+     * Rows are streamed from MySQL one at a time, so memory stays flat
+     * whatever the number of services. The connection is held until the
+     * last row is consumed: keep {@code action} short or MySQL may close
+     * the connection (net_write_timeout).
+     */
+    public void forEachService(ServiceQuery query, Consumer<Service> action) throws SQLException {
+        try (Stream<Service> services = streamServices(query)) {
+            services.forEach(action);
+        } catch (StreamReadException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Lazily streamed services matching {@code query}, in grid order.
+     *
+     * The stream owns a pooled connection and must be closed
+     * (try-with-resources). A read error while iterating is thrown as a
+     * {@link StreamReadException} wrapping the SQLException.
+     */
+    public Stream<Service> streamServices(ServiceQuery query) throws SQLException {
+        List<Object> params = new ArrayList<>();
+        String sql = SERVICE_SELECT + query.toWhereClause(null, params) + SERVICE_ORDER;
+
+        Connection conn = DatabaseConnection.getConnection();
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            // Connector/J: row-by-row streaming instead of buffering the whole result
+            ps.setFetchSize(Integer.MIN_VALUE);
+            ServiceQuery.bind(ps, params);
+            rs = ps.executeQuery();
+        } catch (SQLException e) {
+            closeQuietly(rs, ps, conn);
+            throw e;
+        }
+
+        final ResultSet cursor = rs;
+        final PreparedStatement statement = ps;
+        Spliterator<Service> rows = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Service> action) {
+                try {
+                    if (!cursor.next()) {
+                        return false;
+                    }
+                    action.accept(mapService(cursor));
+                    return true;
+                } catch (SQLException e) {
+                    throw new StreamReadException(e);
+                }
+            }
+        };
+
+        return StreamSupport.stream(rows, false)
+                .onClose(() -> closeQuietly(cursor, statement, conn));
+    }
+
+    private static void closeQuietly(AutoCloseable... resources) {
+        for (AutoCloseable resource : resources) {
+            if (resource == null) {
+                continue;
+            }
+            try {
+                resource.close();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Load one page of services matching {@code query} by keyset: the rows
+     * that come right after {@code after} in (date_creation DESC, id_service DESC) order.
+     *
+     * @param after last row of the previous page, or null for the first page
+     */
+    public List<Service> loadServicePage(ServiceQuery query, ServiceKey after, int limit) throws SQLException {
+        return loadServicePage(query, after, limit, null);
+    }
+
+    /**
+     * Same as {@link #loadServicePage(ServiceQuery, ServiceKey, int)}, abortable
+     * through {@code canceller} (may be null)
+     */
+    public List<Service> loadServicePage(ServiceQuery query, ServiceKey after, int limit,
+                                         StatementCanceller canceller) throws SQLException {
+        List<Object> params = new ArrayList<>();
+        String keyset = null;
+        if (after != null && after.getDateCreation() == null) {
+            // Rows without a date sort last (DESC): only those with a lower id follow
+            keyset = "s.date_creation IS NULL AND s.id_service < ?";
+        } else if (after != null) {
+            keyset = "s.date_creation < ? OR (s.date_creation = ? AND s.id_service < ?)"
+                    + " OR s.date_creation IS NULL";
+        }
+        String sql = SERVICE_SELECT + query.toWhereClause(keyset, params) + SERVICE_ORDER + " LIMIT ?";
+        if (after != null && after.getDateCreation() == null) {
+            params.add(after.getId());
+        } else if (after != null) {
+            params.add(after.getDateCreation());
+            params.add(after.getDateCreation());
+            params.add(after.getId());
+        }
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            int i = ServiceQuery.bind(ps, params);
+            ps.setInt(i, limit);
+
+            track(canceller, ps);
+            try {
+                return readServices(ps, limit);
+            } finally {
+                untrack(canceller, ps);
+            }
+        }
+    }
+
+    /**
+     * Load a page by position. Only used when the grid jumps to a page whose
+     * starting key is not known yet (e.g. dragging the scrollbar).
+     */
+    public List<Service> loadServicePageAt(ServiceQuery query, int offset, int limit) throws SQLException {
+        List<Object> params = new ArrayList<>();
+        String sql = SERVICE_SELECT + query.toWhereClause(null, params) + SERVICE_ORDER + " LIMIT ? OFFSET ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            int i = ServiceQuery.bind(ps, params);
+            ps.setInt(i++, limit);
+            ps.setInt(i, offset);
+
+            return readServices(ps, limit);
+        }
+    }
+
+    /**
+     * Count and totals of the services matching {@code query}, computed by
+     * MySQL in one query without loading any row
+     */
+    public ServiceStatistics loadStatistics(ServiceQuery query) throws SQLException {
+        return loadStatistics(query, null);
+    }
+
+    /**
+     * Same as {@link #loadStatistics(ServiceQuery)}, abortable through
+     * {@code canceller} (may be null)
+     */
+    public ServiceStatistics loadStatistics(ServiceQuery query, StatementCanceller canceller) throws SQLException {
+        List<Object> params = new ArrayList<>();
+        String from = query.needsLookupJoins()
+                ? """
+                  FROM service s
+                  JOIN client c ON s.id_client = c.id_client
+                  JOIN type_service ts ON s.id_type_service = ts.id_type_service
+                  """
+                : " FROM service s";
         String sql = """
-                SELECT s.id_service, c.nom AS client,
-                       ts.nom_type AS type_service,
-                       s.description,
-                       s.prix_total, s.montant_paye,
-                       s.reste_a_payer, s.etat_paiement,
-                       s.statut_service,
-                       s.date_creation
+                SELECT COUNT(*) AS nb,
+                       COALESCE(SUM(s.prix_total), 0) AS total,
+                       COALESCE(SUM(s.montant_paye), 0) AS paye,
+                       COALESCE(SUM(s.reste_a_payer), 0) AS reste
+                """ + from + query.toWhereClause(null, params);
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ServiceQuery.bind(ps, params);
+
+            track(canceller, ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return new ServiceStatistics(
+                        rs.getDouble("total"),
+                        rs.getDouble("paye"),
+                        rs.getDouble("reste"),
+                        rs.getInt("nb"));
+            } finally {
+                untrack(canceller, ps);
+            }
+        }
+    }
+
+    /**
+     * SUM / COUNT of the services matching {@code query}, one row per group,
+     * computed by MySQL. Client and type groups come largest receivable
+     * first; payment status and month groups in key order.
+     */
+    public List<GroupStatistics> loadGroupedStatistics(ServiceQuery query, Grouping grouping) throws SQLException {
+        List<Object> params = new ArrayList<>();
+        String sql = """
+                SELECT %s AS group_key,
+                       COUNT(*) AS nb,
+                       COALESCE(SUM(s.prix_total), 0) AS total,
+                       COALESCE(SUM(s.montant_paye), 0) AS paye,
+                       COALESCE(SUM(s.reste_a_payer), 0) AS reste
                 FROM service s
                 JOIN client c ON s.id_client = c.id_client
                 JOIN type_service ts ON s.id_type_service = ts.id_type_service
-                ORDER BY s.date_creation DESC
+                """.formatted(grouping.expression)
+                + query.toWhereClause(null, params)
+                + " GROUP BY " + grouping.groupBy
+                + (grouping.byAmount ? " ORDER BY reste DESC, group_key" : " ORDER BY group_key");
+
+        List<GroupStatistics> groups = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ServiceQuery.bind(ps, params);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    groups.add(new GroupStatistics(rs.getString("group_key"), new ServiceStatistics(
+                            rs.getDouble("total"),
+                            rs.getDouble("paye"),
+                            rs.getDouble("reste"),
+                            rs.getInt("nb"))));
+                }
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * Headline figures for the dashboard, in one pass over service
+     */
+    public DashboardKpis loadDashboardKpis() throws SQLException {
+        String sql = """
+                SELECT COUNT(*) AS nb,
+                       COALESCE(SUM(statut_service = 'TERMINE'), 0) AS termines,
+                       COALESCE(SUM(etat_paiement = 'PAYE'), 0) AS payes,
+                       COALESCE(SUM(prix_total), 0) AS total,
+                       COALESCE(SUM(montant_paye), 0) AS paye,
+                       COALESCE(SUM(reste_a_payer), 0) AS reste,
+                       COUNT(DISTINCT CASE
+                           WHEN statut_service <> 'TERMINE' OR reste_a_payer > 0 THEN id_client
+                       END) AS clients_actifs
+                FROM service
                 """;
 
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+
+            rs.next();
+            return new DashboardKpis(
+                    rs.getInt("nb"),
+                    rs.getInt("termines"),
+                    rs.getInt("payes"),
+                    rs.getDouble("total"),
+                    rs.getDouble("paye"),
+                    rs.getDouble("reste"),
+                    rs.getInt("clients_actifs"));
+        }
+    }
+
+    /**
+     * Outstanding amounts per client, split by age of the service
+     * (0-30, 31-60, 61-90, over 90 days since date_creation), in one
+     * grouped pass over the unpaid rows. Largest receivable first.
+     *
+     * Prefer {@link ReceivablesAgingCache#get()}, which only runs this
+     * query again after an amount changed.
+     */
+    public List<ClientAging> loadReceivablesAging() throws SQLException {
+        String sql = """
+                SELECT c.nom AS client,
+                       COUNT(*) AS nb,
+                       SUM(CASE WHEN a.jours <= 30 THEN a.reste ELSE 0 END) AS b0_30,
+                       SUM(CASE WHEN a.jours BETWEEN 31 AND 60 THEN a.reste ELSE 0 END) AS b31_60,
+                       SUM(CASE WHEN a.jours BETWEEN 61 AND 90 THEN a.reste ELSE 0 END) AS b61_90,
+                       SUM(CASE WHEN a.jours > 90 THEN a.reste ELSE 0 END) AS b90_plus,
+                       SUM(a.reste) AS total
+                FROM (
+                    SELECT s.id_client,
+                           s.reste_a_payer AS reste,
+                           COALESCE(DATEDIFF(CURDATE(), s.date_creation), 0) AS jours
+                    FROM service s
+                    WHERE s.reste_a_payer > 0
+                ) a
+                JOIN client c ON a.id_client = c.id_client
+                GROUP BY c.id_client, c.nom
+                ORDER BY total DESC, c.nom
+                """;
+
+        List<ClientAging> rows = new ArrayList<>();
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql);
              ResultSet rs = ps.executeQuery()) {
 
             while (rs.next()) {
-                services.add(new Service(
-                        rs.getInt("id_service"),
+                rows.add(new ClientAging(
                         rs.getString("client"),
-                        rs.getString("type_service"),
-                        rs.getString("description"),
-                        rs.getDouble("prix_total"),
-                        rs.getDouble("montant_paye"),
-                        rs.getDouble("reste_a_payer"),
-                        rs.getString("etat_paiement"),
-                        rs.getString("statut_service"),
-                        rs.getTimestamp("date_creation")));
+                        rs.getInt("nb"),
+                        rs.getDouble("b0_30"),
+                        rs.getDouble("b31_60"),
+                        rs.getDouble("b61_90"),
+                        rs.getDouble("b90_plus")));
             }
         }
+        return rows;
+    }
 
-        return services;
+    /**
+     * Re-read a single service by id after a mutation
+     *
+     * @return the current row, or null if it no longer exists
+     */
+    public Service loadService(int serviceId) throws SQLException {
+        String sql = SERVICE_SELECT + " WHERE s.id_service = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setInt(1, serviceId);
+            List<Service> rows = readServices(ps, 1);
+            return rows.isEmpty() ? null : rows.get(0);
+        }
+    }
+
+    /**
+     * Re-read several services by id in one query (e.g. after a batch of payments)
+     */
+    public List<Service> loadServices(Collection<Integer> serviceIds) throws SQLException {
+        if (serviceIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(serviceIds.size(), "?"));
+        String sql = SERVICE_SELECT + " WHERE s.id_service IN (" + placeholders + ")";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            int i = 1;
+            for (Integer id : serviceIds) {
+                ps.setInt(i++, id);
+            }
+            return readServices(ps, serviceIds.size());
+        }
     }
 
     /**
      * Add a new service with optional initial payment
+     *
+     * @return the id of the new service
      */
-    public boolean addService(int clientId, int typeId, String description,
+    public int addService(int clientId, int typeId, String description,
                               double prixTotal, double montantPaye, String statutService) throws SQLException {
 
         String etatPaiement = calculatePaymentStatus(montantPaye, prixTotal);
@@ -104,9 +483,11 @@ public class ServiceManager {
             if (montantPaye > 0) {
                 recordPayment(conn, serviceId, montantPaye, "Paiement initial");
             }
+            DailyRollup.addServices(conn, List.of(serviceId));
 
             conn.commit();
-            return true;
+            amountsChanged();
+            return serviceId;
 
         } catch (SQLException e) {
             if (conn != null) {
@@ -130,47 +511,136 @@ public class ServiceManager {
     }
 
     /**
-     * Update payment for a service
+     * Record a payment for a service.
+     *
+     * The new total and payment status are computed by MySQL in a single
+     * conditional UPDATE, so concurrent cashiers cannot lose each other's
+     * payments and the row lock is only held for the UPDATE + INSERT.
+     *
+     * @throws IllegalArgumentException if the amount is not positive or would
+     *         exceed the total price
      */
-    public boolean updatePayment(int serviceId, double currentPaid, double totalPrice,
-                                 double additionalPayment, String paymentMode) throws SQLException {
+    public boolean updatePayment(int serviceId, double additionalPayment, String paymentMode) throws SQLException {
 
         if (additionalPayment <= 0) {
             throw new IllegalArgumentException("Payment amount must be positive");
         }
 
-        double newTotalPaid = currentPaid + additionalPayment;
-        
-        if (newTotalPaid > totalPrice + 0.01) { // Small tolerance for floating point
-            throw new IllegalArgumentException("Total payment cannot exceed total price");
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            int rows;
+            try (PreparedStatement ps = conn.prepareStatement(PAYMENT_UPDATE_SQL)) {
+                bindPaymentUpdate(ps, serviceId, additionalPayment);
+                rows = ps.executeUpdate();
+            }
+
+            if (rows == 0) {
+                conn.rollback();
+                if (!serviceExists(conn, serviceId)) {
+                    throw new SQLException("Service #" + serviceId + " not found");
+                }
+                throw new IllegalArgumentException("Total payment cannot exceed total price");
+            }
+
+            // Record payment
+            recordPayment(conn, serviceId, additionalPayment, paymentMode);
+            DailyRollup.addPayment(conn, serviceId, additionalPayment);
+
+            conn.commit();
+            amountsChanged();
+            return true;
+
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    ex.printStackTrace();
+                }
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Record many payments at once (e.g. a stack of cheques at month-end).
+     *
+     * All service updates and paiement_vente rows are sent as two JDBC
+     * batches in a single transaction; with rewriteBatchedStatements=true in
+     * the connection URL each batch is one round trip. Either every payment
+     * is recorded or none is.
+     *
+     * @throws IllegalArgumentException if an amount is not positive, or if a
+     *         payment would exceed the total price of its service
+     */
+    public boolean recordPayments(List<PaymentRequest> requests) throws SQLException {
+        if (requests.isEmpty()) {
+            return false;
+        }
+        for (PaymentRequest request : requests) {
+            if (request.getAmount() <= 0) {
+                throw new IllegalArgumentException("Payment amount must be positive (service #"
+                        + request.getServiceId() + ")");
+            }
         }
 
-        String newStatus = calculatePaymentStatus(newTotalPaid, totalPrice);
+        String insertPaymentSQL = """
+                INSERT INTO paiement_vente
+                (id_service, montant, mode_paiement, date_paiement)
+                VALUES (?, ?, ?, NOW())
+                """;
 
         Connection conn = null;
         try {
             conn = DatabaseConnection.getConnection();
             conn.setAutoCommit(false);
 
-            // Update service
-            String updateServiceSQL = """
-                    UPDATE service
-                    SET montant_paye = ?,
-                        etat_paiement = ?
-                    WHERE id_service = ?
-                    """;
-
-            try (PreparedStatement ps = conn.prepareStatement(updateServiceSQL)) {
-                ps.setDouble(1, newTotalPaid);
-                ps.setString(2, newStatus);
-                ps.setInt(3, serviceId);
-                ps.executeUpdate();
+            int[] counts;
+            try (PreparedStatement ps = conn.prepareStatement(PAYMENT_UPDATE_SQL)) {
+                for (PaymentRequest request : requests) {
+                    bindPaymentUpdate(ps, request.getServiceId(), request.getAmount());
+                    ps.addBatch();
+                }
+                counts = ps.executeBatch();
             }
 
-            // Record payment
-            recordPayment(conn, serviceId, additionalPayment, paymentMode);
+            List<String> rejected = new ArrayList<>();
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0) {
+                    rejected.add("#" + requests.get(i).getServiceId());
+                }
+            }
+            if (!rejected.isEmpty()) {
+                conn.rollback();
+                throw new IllegalArgumentException("Total payment cannot exceed total price for service(s) "
+                        + String.join(", ", rejected));
+            }
+
+            try (PreparedStatement ps = conn.prepareStatement(insertPaymentSQL)) {
+                for (PaymentRequest request : requests) {
+                    ps.setInt(1, request.getServiceId());
+                    ps.setDouble(2, request.getAmount());
+                    ps.setString(3, request.getMode());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            DailyRollup.addPayments(conn, requests);
 
             conn.commit();
+            amountsChanged();
             return true;
 
         } catch (SQLException e) {
@@ -206,7 +676,11 @@ public class ServiceManager {
             ps.setString(1, newStatus);
             ps.setInt(2, serviceId);
 
-            return ps.executeUpdate() > 0;
+            boolean updated = ps.executeUpdate() > 0;
+            if (updated) {
+                DashboardCache.getInstance().invalidate();
+            }
+            return updated;
         }
     }
 
@@ -219,6 +693,9 @@ public class ServiceManager {
             conn = DatabaseConnection.getConnection();
             conn.setAutoCommit(false);
 
+            // Amounts leave the rollup before the rows disappear
+            DailyRollup.removeServices(conn, List.of(serviceId));
+
             // Delete payments first (foreign key constraint)
             String deletePaiementsSQL = "DELETE FROM paiement_vente WHERE id_service = ?";
             try (PreparedStatement ps = conn.prepareStatement(deletePaiementsSQL)) {
@@ -234,10 +711,13 @@ public class ServiceManager {
                 
                 if (rows > 0) {
                     conn.commit();
+                    amountsChanged();
                     return true;
                 }
             }
 
+            // Nothing deleted: don't let setAutoCommit(true) commit the payment deletion
+            conn.rollback();
             return false;
 
         } catch (SQLException e) {
@@ -291,6 +771,87 @@ public class ServiceManager {
         return payments;
     }
 
+    /**
+     * Payment histories of many services at once (batch invoices), newest
+     * first, in IN queries of {@link #IN_CHUNK} ids over one connection.
+     * Every requested id is in the result, with an empty list if unpaid.
+     */
+    public Map<Integer, ObservableList<Payment>> loadPaymentHistories(Collection<Integer> serviceIds) throws SQLException {
+        Map<Integer, ObservableList<Payment>> histories = new HashMap<>();
+        for (Integer id : serviceIds) {
+            histories.put(id, FXCollections.observableArrayList());
+        }
+
+        List<Integer> ids = new ArrayList<>(histories.keySet());
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            for (int from = 0; from < ids.size(); from += IN_CHUNK) {
+                List<Integer> chunk = ids.subList(from, Math.min(ids.size(), from + IN_CHUNK));
+                String sql = """
+                        SELECT id_service, date_paiement, montant, mode_paiement
+                        FROM paiement_vente
+                        WHERE id_service IN (%s)
+                        ORDER BY id_service, date_paiement DESC
+                        """.formatted(String.join(", ", Collections.nCopies(chunk.size(), "?")));
+
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    int i = 1;
+                    for (Integer id : chunk) {
+                        ps.setInt(i++, id);
+                    }
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            histories.get(rs.getInt("id_service")).add(new Payment(
+                                    rs.getTimestamp("date_paiement"),
+                                    rs.getDouble("montant"),
+                                    rs.getString("mode_paiement")));
+                        }
+                    }
+                }
+            }
+        }
+        return histories;
+    }
+
+    /**
+     * Details of many clients at once, by name. Unknown names get a
+     * ClientDetails with the name only, as {@link #getClientDetails(String)}.
+     */
+    public Map<String, ClientDetails> getClientDetails(Collection<String> clientNames) throws SQLException {
+        Map<String, ClientDetails> details = new HashMap<>();
+        List<String> names = new ArrayList<>(new LinkedHashSet<>(clientNames));
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            for (int from = 0; from < names.size(); from += IN_CHUNK) {
+                List<String> chunk = names.subList(from, Math.min(names.size(), from + IN_CHUNK));
+                String sql = """
+                        SELECT nom, telephone, email, adresse
+                        FROM client
+                        WHERE nom IN (%s)
+                        """.formatted(String.join(", ", Collections.nCopies(chunk.size(), "?")));
+
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    int i = 1;
+                    for (String name : chunk) {
+                        ps.setString(i++, name);
+                    }
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            details.putIfAbsent(rs.getString("nom"), new ClientDetails(
+                                    rs.getString("nom"),
+                                    rs.getString("telephone"),
+                                    rs.getString("email"),
+                                    rs.getString("adresse")));
+                        }
+                    }
+                }
+            }
+        }
+        for (String name : names) {
+            details.putIfAbsent(name, new ClientDetails(name, null, null, null));
+        }
+        return details;
+    }
+
     /**
      * Get detailed client information
      */
@@ -322,6 +883,66 @@ public class ServiceManager {
 
     // ============ PRIVATE HELPER METHODS ============
 
+    /**
+     * Amounts changed (service added or deleted, payment recorded):
+     * refresh the dashboard and drop the aging report
+     */
+    static void amountsChanged() {
+        ReceivablesAgingCache.invalidate();
+        DashboardCache.getInstance().invalidate();
+    }
+
+    private static void track(StatementCanceller canceller, Statement statement) throws SQLException {
+        if (canceller != null) {
+            canceller.register(statement);
+        }
+    }
+
+    private static void untrack(StatementCanceller canceller, Statement statement) {
+        if (canceller != null) {
+            canceller.unregister(statement);
+        }
+    }
+
+    private List<Service> readServices(PreparedStatement ps, int expected) throws SQLException {
+        List<Service> services = new ArrayList<>(expected);
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                services.add(mapService(rs));
+            }
+        }
+        return services;
+    }
+
+    private Service mapService(ResultSet rs) throws SQLException {
+        return new Service(
+                rs.getInt("id_service"),
+                rs.getString("client"),
+                rs.getString("type_service"),
+                rs.getString("description"),
+                rs.getDouble("prix_total"),
+                rs.getDouble("montant_paye"),
+                rs.getDouble("reste_a_payer"),
+                rs.getString("etat_paiement"),
+                rs.getString("statut_service"),
+                rs.getTimestamp("date_creation"));
+    }
+
+    private boolean serviceExists(Connection conn, int serviceId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT 1 FROM service WHERE id_service = ?")) {
+            ps.setInt(1, serviceId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private static void bindPaymentUpdate(PreparedStatement ps, int serviceId, double amount) throws SQLException {
+        ps.setDouble(1, amount);
+        ps.setInt(2, serviceId);
+        ps.setDouble(3, amount);
+    }
+
     private void recordPayment(Connection conn, int serviceId, double amount, String mode) throws SQLException {
         String sql = """
                 INSERT INTO paiement_vente
@@ -349,6 +970,184 @@ public class ServiceManager {
 
     // ============ DATA CLASSES ============
 
+    /**
+     * Dashboard figures, see {@link #loadDashboardKpis}
+     */
+    public static class DashboardKpis {
+        private final int serviceCount;
+        private final int completedCount;
+        private final int fullyPaidCount;
+        private final double totalBilled;
+        private final double totalCollected;
+        private final double totalOutstanding;
+        private final int activeClients;
+
+        public DashboardKpis(int serviceCount, int completedCount, int fullyPaidCount, double totalBilled,
+                             double totalCollected, double totalOutstanding, int activeClients) {
+            this.serviceCount = serviceCount;
+            this.completedCount = completedCount;
+            this.fullyPaidCount = fullyPaidCount;
+            this.totalBilled = totalBilled;
+            this.totalCollected = totalCollected;
+            this.totalOutstanding = totalOutstanding;
+            this.activeClients = activeClients;
+        }
+
+        public int getServiceCount() { return serviceCount; }
+        public int getCompletedCount() { return completedCount; }
+        public int getFullyPaidCount() { return fullyPaidCount; }
+        public double getTotalBilled() { return totalBilled; }
+        public double getTotalCollected() { return totalCollected; }
+        public double getTotalOutstanding() { return totalOutstanding; }
+
+        /** Clients with unfinished work or an outstanding balance */
+        public int getActiveClients() { return activeClients; }
+
+        public double getCompletedRatio() {
+            return serviceCount == 0 ? 0 : (double) completedCount / serviceCount;
+        }
+
+        public double getFullyPaidRatio() {
+            return serviceCount == 0 ? 0 : (double) fullyPaidCount / serviceCount;
+        }
+
+        public double getCollectedRatio() {
+            return totalBilled == 0 ? 0 : totalCollected / totalBilled;
+        }
+    }
+
+    /**
+     * Dimension of {@link #loadGroupedStatistics}
+     */
+    public enum Grouping {
+        // Client names are not unique: grouped by id, labelled by name
+        CLIENT("Client", "c.nom", "c.id_client", true),
+        TYPE("Type de service", "ts.nom_type", "group_key", true),
+        PAYMENT_STATUS("Statut paiement", "s.etat_paiement", "group_key", false),
+        MONTH("Mois", "DATE_FORMAT(s.date_creation, '%Y-%m')", "group_key", false);
+
+        private final String label;
+        private final String expression;
+        private final String groupBy;
+        private final boolean byAmount;
+
+        Grouping(String label, String expression, String groupBy, boolean byAmount) {
+            this.label = label;
+            this.expression = expression;
+            this.groupBy = groupBy;
+            this.byAmount = byAmount;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    /**
+     * Receivables of one client by age bucket, see {@link #loadReceivablesAging}
+     */
+    public static class ClientAging {
+        private final String client;
+        private final int serviceCount;
+        private final double upTo30;
+        private final double from31To60;
+        private final double from61To90;
+        private final double over90;
+
+        public ClientAging(String client, int serviceCount,
+                           double upTo30, double from31To60, double from61To90, double over90) {
+            this.client = client;
+            this.serviceCount = serviceCount;
+            this.upTo30 = upTo30;
+            this.from31To60 = from31To60;
+            this.from61To90 = from61To90;
+            this.over90 = over90;
+        }
+
+        public String getClient() { return client; }
+        public int getServiceCount() { return serviceCount; }
+        public double getUpTo30() { return upTo30; }
+        public double getFrom31To60() { return from31To60; }
+        public double getFrom61To90() { return from61To90; }
+        public double getOver90() { return over90; }
+
+        public double getTotal() {
+            return upTo30 + from31To60 + from61To90 + over90;
+        }
+    }
+
+    /**
+     * Totals of one group (client, type, status or month)
+     */
+    public static class GroupStatistics {
+        private final String key;
+        private final ServiceStatistics statistics;
+
+        public GroupStatistics(String key, ServiceStatistics statistics) {
+            this.key = key;
+            this.statistics = statistics;
+        }
+
+        public String getKey() { return key; }
+        public ServiceStatistics getStatistics() { return statistics; }
+    }
+
+    /**
+     * SQLException raised while iterating {@link #streamServices}
+     */
+    public static class StreamReadException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public StreamReadException(SQLException cause) {
+            super(cause.getMessage(), cause);
+        }
+
+        @Override
+        public synchronized SQLException getCause() {
+            return (SQLException) super.getCause();
+        }
+    }
+
+    /**
+     * One payment of a batch passed to {@link #recordPayments}
+     */
+    public static class PaymentRequest {
+        private final int serviceId;
+        private final double amount;
+        private final String mode;
+
+        public PaymentRequest(int serviceId, double amount, String mode) {
+            this.serviceId = serviceId;
+            this.amount = amount;
+            this.mode = mode;
+        }
+
+        public int getServiceId() { return serviceId; }
+        public double getAmount() { return amount; }
+        public String getMode() { return mode; }
+    }
+
+    /**
+     * Position of a row in the grid order, used as a keyset page boundary
+     */
+    public static class ServiceKey {
+        private final Timestamp dateCreation;
+        private final int id;
+
+        public ServiceKey(Timestamp dateCreation, int id) {
+            this.dateCreation = dateCreation;
+            this.id = id;
+        }
+
+        public static ServiceKey of(Service service) {
+            return new ServiceKey(service.getDateCreation(), service.getId());
+        }
+
+        public Timestamp getDateCreation() { return dateCreation; }
+        public int getId() { return id; }
+    }
+
     public static class ClientDetails {
         private final String nom;
         private final String telephone;
@@ -392,13 +1191,32 @@ public class ServiceManager {
         private final double totalRemaining;
         private final int serviceCount;
 
-        public ServiceStatistics(ObservableList<Service> services) {
-            this.totalAmount = services.stream().mapToDouble(Service::getPrixTotal).sum();
-            this.totalPaid = services.stream().mapToDouble(Service::getMontantPaye).sum();
-            this.totalRemaining = services.stream().mapToDouble(Service::getReste).sum();
+        /**
+         * Totals of rows already in memory, in a single pass
+         */
+        public ServiceStatistics(List<Service> services) {
+            double amount = 0;
+            double paid = 0;
+            double remaining = 0;
+            for (int i = 0; i < services.size(); i++) {
+                Service service = services.get(i);
+                amount += service.getPrixTotal();
+                paid += service.getMontantPaye();
+                remaining += service.getReste();
+            }
+            this.totalAmount = amount;
+            this.totalPaid = paid;
+            this.totalRemaining = remaining;
             this.serviceCount = services.size();
         }
 
+        public ServiceStatistics(double totalAmount, double totalPaid, double totalRemaining, int serviceCount) {
+            this.totalAmount = totalAmount;
+            this.totalPaid = totalPaid;
+            this.totalRemaining = totalRemaining;
+            this.serviceCount = serviceCount;
+        }
+
         public double getTotalAmount() { return totalAmount; }
         public double getTotalPaid() { return totalPaid; }
         public double getTotalRemaining() { return totalRemaining; }
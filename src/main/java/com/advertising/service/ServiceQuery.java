@@ -0,0 +1,170 @@
+package com.advertising.service;
+
+import com.advertising.controller.ServiceController.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Filter criteria for the service grid, translated into a parameterized
+ * WHERE clause so filtering happens in MySQL instead of in memory.
+ *
+ * A null criterion means "no filter". Conditions only use sargable
+ * comparisons on indexed columns (see database/schema.sql):
+ * - client / type by name, resolved through the join on their ids
+ * - payment / service status by equality
+ * - date range as a half-open interval [from, to + 1 day)
+ *
+ * The query expects the aliases used by ServiceManager:
+ * service s, client c, type_service ts.
+ */
+public class ServiceQuery {
+
+    /** No filter: every service */
+    public static final ServiceQuery ALL = new ServiceQuery(null, null, null, null, null, null);
+
+    private final String clientName;
+    private final String typeName;
+    private final String etatPaiement;
+    private final String statutService;
+    private final LocalDate dateFrom;
+    private final LocalDate dateTo;
+
+    public ServiceQuery(String clientName, String typeName, String etatPaiement,
+                        String statutService, LocalDate dateFrom, LocalDate dateTo) {
+        this.clientName = clientName;
+        this.typeName = typeName;
+        this.etatPaiement = etatPaiement;
+        this.statutService = statutService;
+        this.dateFrom = dateFrom;
+        this.dateTo = dateTo;
+    }
+
+    public String getClientName() { return clientName; }
+    public String getTypeName() { return typeName; }
+    public String getEtatPaiement() { return etatPaiement; }
+    public String getStatutService() { return statutService; }
+    public LocalDate getDateFrom() { return dateFrom; }
+    public LocalDate getDateTo() { return dateTo; }
+
+    public boolean isUnfiltered() {
+        return clientName == null && typeName == null && etatPaiement == null
+                && statutService == null && dateFrom == null && dateTo == null;
+    }
+
+    /**
+     * Same test as the WHERE clause, evaluated on a row already in memory
+     * (used to decide whether an updated row stays in the grid)
+     */
+    public boolean matches(Service service) {
+        if (clientName != null && !clientName.equals(service.getClient())) {
+            return false;
+        }
+        if (typeName != null && !typeName.equals(service.getType())) {
+            return false;
+        }
+        if (etatPaiement != null && !etatPaiement.equals(service.getStatutPaiement())) {
+            return false;
+        }
+        if (statutService != null && !statutService.equals(service.getStatutService())) {
+            return false;
+        }
+        if (dateFrom != null || dateTo != null) {
+            Timestamp date = service.getDateCreation();
+            if (date == null) {
+                return false;
+            }
+            if (dateFrom != null && date.before(Timestamp.valueOf(dateFrom.atStartOfDay()))) {
+                return false;
+            }
+            if (dateTo != null && !date.before(Timestamp.valueOf(dateTo.plusDays(1).atStartOfDay()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ServiceQuery)) return false;
+        ServiceQuery other = (ServiceQuery) o;
+        return Objects.equals(clientName, other.clientName)
+                && Objects.equals(typeName, other.typeName)
+                && Objects.equals(etatPaiement, other.etatPaiement)
+                && Objects.equals(statutService, other.statutService)
+                && Objects.equals(dateFrom, other.dateFrom)
+                && Objects.equals(dateTo, other.dateTo);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(clientName, typeName, etatPaiement, statutService, dateFrom, dateTo);
+    }
+
+    /**
+     * Whether the conditions reference client or type_service columns
+     */
+    public boolean needsLookupJoins() {
+        return clientName != null || typeName != null;
+    }
+
+    /**
+     * Build the WHERE clause for these criteria
+     *
+     * @param extraCondition additional condition ANDed with the filters (may be null)
+     * @return the SQL fragment, empty when there is nothing to filter;
+     *         the matching parameters are appended to {@code params}
+     */
+    public String toWhereClause(String extraCondition, List<Object> params) {
+        List<String> conditions = new ArrayList<>();
+
+        if (clientName != null) {
+            conditions.add("c.nom = ?");
+            params.add(clientName);
+        }
+        if (typeName != null) {
+            conditions.add("ts.nom_type = ?");
+            params.add(typeName);
+        }
+        if (etatPaiement != null) {
+            conditions.add("s.etat_paiement = ?");
+            params.add(etatPaiement);
+        }
+        if (statutService != null) {
+            conditions.add("s.statut_service = ?");
+            params.add(statutService);
+        }
+        if (dateFrom != null) {
+            conditions.add("s.date_creation >= ?");
+            params.add(Timestamp.valueOf(dateFrom.atStartOfDay()));
+        }
+        if (dateTo != null) {
+            conditions.add("s.date_creation < ?");
+            params.add(Timestamp.valueOf(dateTo.plusDays(1).atStartOfDay()));
+        }
+        if (extraCondition != null) {
+            conditions.add("(" + extraCondition + ")");
+        }
+
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    /**
+     * Bind parameters collected by {@link #toWhereClause} starting at index 1
+     *
+     * @return the next free parameter index
+     */
+    public static int bind(PreparedStatement ps, List<Object> params) throws SQLException {
+        int i = 1;
+        for (Object param : params) {
+            ps.setObject(i++, param);
+        }
+        return i;
+    }
+}
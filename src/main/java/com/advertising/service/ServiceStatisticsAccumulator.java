@@ -0,0 +1,126 @@
+package com.advertising.service;
+
+import com.advertising.controller.ServiceController.Service;
+import javafx.collections.ListChangeListener;
+
+import java.util.List;
+
+/**
+ * Running totals (count, total, paid, remaining) of the services shown by
+ * the grid, kept up to date from the grid's list changes.
+ *
+ * The baseline comes from the query that filled the grid ({@link #reset});
+ * after that, as a ListChangeListener on the {@link PagedServiceList}, it
+ * only looks at the rows of each change:
+ * - a row replaced by another (payment, status change): subtract old, add new
+ * - a row removed (delete, no longer matching the filters): subtract it
+ * Changes involving placeholders are pages being loaded or evicted, and
+ * plain additions only happen on a reset: neither changes the totals.
+ *
+ * Every update is O(rows in the change), with no allocation.
+ */
+public class ServiceStatisticsAccumulator implements ListChangeListener<Service> {
+
+    private int count;
+    private double totalAmount;
+    private double totalPaid;
+    private double totalRemaining;
+    private Runnable onChange;
+
+    /**
+     * Called after the totals changed through a list change
+     */
+    public void setOnChange(Runnable onChange) {
+        this.onChange = onChange;
+    }
+
+    /**
+     * Start over from totals computed elsewhere (database or index)
+     */
+    public void reset(ServiceManager.ServiceStatistics baseline) {
+        count = baseline.getServiceCount();
+        totalAmount = baseline.getTotalAmount();
+        totalPaid = baseline.getTotalPaid();
+        totalRemaining = baseline.getTotalRemaining();
+    }
+
+    /**
+     * Apply a change to a row the list does not hold (e.g. evicted page)
+     *
+     * @param before the row as it was counted, or null if it was not
+     * @param after the row as it should now be counted, or null if it no longer is
+     */
+    public void apply(Service before, Service after) {
+        if (before != null) {
+            subtract(before);
+        }
+        if (after != null) {
+            add(after);
+        }
+    }
+
+    @Override
+    public void onChanged(Change<? extends Service> c) {
+        boolean changed = false;
+        while (c.next()) {
+            if (c.wasPermutated() || c.wasUpdated()) {
+                continue;
+            }
+            List<? extends Service> removed = c.getRemoved();
+            if (c.wasAdded()) {
+                if (!c.wasRemoved() || hasPlaceholder(removed)) {
+                    continue; // reset or page loaded
+                }
+                List<? extends Service> added = c.getAddedSubList();
+                if (hasPlaceholder(added)) {
+                    continue; // page evicted
+                }
+                for (int i = 0; i < removed.size(); i++) {
+                    subtract(removed.get(i));
+                }
+                for (int i = 0; i < added.size(); i++) {
+                    add(added.get(i));
+                }
+                changed = true;
+            } else {
+                for (int i = 0; i < removed.size(); i++) {
+                    Service service = removed.get(i);
+                    if (!service.isPlaceholder()) {
+                        subtract(service);
+                        changed = true;
+                    }
+                }
+            }
+        }
+        if (changed && onChange != null) {
+            onChange.run();
+        }
+    }
+
+    public ServiceManager.ServiceStatistics snapshot() {
+        return new ServiceManager.ServiceStatistics(totalAmount, totalPaid, totalRemaining, count);
+    }
+
+    private void add(Service service) {
+        count++;
+        totalAmount += service.getPrixTotal();
+        totalPaid += service.getMontantPaye();
+        totalRemaining += service.getReste();
+    }
+
+    private void subtract(Service service) {
+        count--;
+        totalAmount -= service.getPrixTotal();
+        totalPaid -= service.getMontantPaye();
+        totalRemaining -= service.getReste();
+    }
+
+    private static boolean hasPlaceholder(List<? extends Service> rows) {
+        for (int i = 0; i < rows.size(); i++) {
+            if (rows.get(i).isPlaceholder()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
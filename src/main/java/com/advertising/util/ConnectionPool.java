@@ -0,0 +1,416 @@
+package com.advertising.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded JDBC connection pool
+ *
+ * Connections handed out are proxies: calling close() returns the physical
+ * connection to the pool instead of closing it, so existing
+ * try-with-resources code keeps working unchanged.
+ *
+ * Features:
+ * - Fixed maximum size, callers wait up to borrowTimeout when exhausted
+ * - Validation on borrow (Connection.isValid)
+ * - Idle timeout and maximum lifetime, enforced on borrow and by a housekeeper
+ * - Statistics: active, idle, wait time, borrow timeouts
+ */
+public class ConnectionPool {
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int maxSize;
+    private final long borrowTimeoutMs;
+    private final long idleTimeoutMs;
+    private final long maxLifetimeMs;
+    private final int validationTimeoutSec;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private final ScheduledExecutorService housekeeper;
+
+    // Guarded by lock
+    private int totalConnections = 0;
+    private int waitingThreads = 0;
+    private boolean shutdown = false;
+    private long borrowCount = 0;
+    private long borrowTimeouts = 0;
+    private long totalWaitNanos = 0;
+    private long maxWaitNanos = 0;
+
+    public ConnectionPool(String url, String user, String password,
+                          int maxSize, long borrowTimeoutMs, long idleTimeoutMs,
+                          long maxLifetimeMs, int validationTimeoutSec) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Pool size must be positive");
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMs = borrowTimeoutMs;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.maxLifetimeMs = maxLifetimeMs;
+        this.validationTimeoutSec = validationTimeoutSec;
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, Math.min(idleTimeoutMs, 30_000));
+        housekeeper.scheduleWithFixedDelay(this::evictExpired, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Build a pool from properties (see database.properties)
+     */
+    public static ConnectionPool fromProperties(Properties props) {
+        return new ConnectionPool(
+                props.getProperty("db.url", "jdbc:mysql://localhost:3306/decopeint?rewriteBatchedStatements=true"),
+                props.getProperty("db.user", "root"),
+                props.getProperty("db.password", ""),
+                Integer.parseInt(props.getProperty("pool.maxSize", "8").trim()),
+                Long.parseLong(props.getProperty("pool.borrowTimeoutMs", "5000").trim()),
+                Long.parseLong(props.getProperty("pool.idleTimeoutMs", "300000").trim()),
+                Long.parseLong(props.getProperty("pool.maxLifetimeMs", "1800000").trim()),
+                Integer.parseInt(props.getProperty("pool.validationTimeoutSec", "2").trim()));
+    }
+
+    /**
+     * Borrow a connection. Closing it returns it to the pool.
+     */
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        long remaining = TimeUnit.MILLISECONDS.toNanos(borrowTimeoutMs);
+
+        while (true) {
+            PooledConnection candidate = null;
+            boolean create = false;
+
+            lock.lock();
+            try {
+                while (candidate == null && !create) {
+                    if (shutdown) {
+                        throw new SQLException("Connection pool is shut down");
+                    }
+                    if (!idle.isEmpty()) {
+                        candidate = idle.pollFirst();
+                    } else if (totalConnections < maxSize) {
+                        totalConnections++;
+                        create = true;
+                    } else {
+                        if (remaining <= 0) {
+                            borrowTimeouts++;
+                            throw new SQLTimeoutException("Timed out after " + borrowTimeoutMs
+                                    + " ms waiting for a database connection (pool size " + maxSize + ")");
+                        }
+                        waitingThreads++;
+                        try {
+                            remaining = available.awaitNanos(remaining);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new SQLException("Interrupted while waiting for a database connection", e);
+                        } finally {
+                            waitingThreads--;
+                        }
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (create) {
+                try {
+                    candidate = new PooledConnection(DriverManager.getConnection(url, user, password));
+                } catch (SQLException e) {
+                    discard(null);
+                    throw e;
+                }
+            } else if (!isUsable(candidate)) {
+                discard(candidate);
+                remaining = TimeUnit.MILLISECONDS.toNanos(borrowTimeoutMs) - (System.nanoTime() - start);
+                continue;
+            }
+
+            recordBorrow(System.nanoTime() - start);
+            candidate.lastBorrowed = System.currentTimeMillis();
+            return candidate.newHandle();
+        }
+    }
+
+    private boolean isUsable(PooledConnection pooled) {
+        long now = System.currentTimeMillis();
+        if (pooled.isExpired(now)) {
+            return false;
+        }
+        try {
+            return pooled.physical.isValid(validationTimeoutSec);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void recordBorrow(long waitNanos) {
+        lock.lock();
+        try {
+            borrowCount++;
+            totalWaitNanos += waitNanos;
+            maxWaitNanos = Math.max(maxWaitNanos, waitNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(PooledConnection pooled) {
+        boolean healthy;
+        try {
+            healthy = !pooled.physical.isClosed();
+            if (healthy && !pooled.physical.getAutoCommit()) {
+                // Never hand out a connection with a pending transaction
+                pooled.physical.rollback();
+                pooled.physical.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            healthy = false;
+        }
+
+        if (!healthy || pooled.isExpired(System.currentTimeMillis())) {
+            discard(pooled);
+            return;
+        }
+
+        lock.lock();
+        try {
+            if (shutdown) {
+                totalConnections--;
+            } else {
+                pooled.lastReturned = System.currentTimeMillis();
+                idle.addFirst(pooled);
+                available.signal();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        closeQuietly(pooled);
+    }
+
+    /**
+     * Drop a physical connection (or a failed creation slot) and wake a waiter
+     */
+    private void discard(PooledConnection pooled) {
+        lock.lock();
+        try {
+            totalConnections--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+        if (pooled != null) {
+            closeQuietly(pooled);
+        }
+    }
+
+    private void evictExpired() {
+        List<PooledConnection> expired = new ArrayList<>();
+        long now = System.currentTimeMillis();
+
+        lock.lock();
+        try {
+            Iterator<PooledConnection> it = idle.iterator();
+            while (it.hasNext()) {
+                PooledConnection pooled = it.next();
+                if (pooled.isExpired(now)) {
+                    it.remove();
+                    totalConnections--;
+                    expired.add(pooled);
+                }
+            }
+            if (!expired.isEmpty()) {
+                available.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        expired.forEach(this::closeQuietly);
+    }
+
+    private void closeQuietly(PooledConnection pooled) {
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing pooled connection: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Close idle connections and refuse new borrows.
+     * Connections still in use are closed when they are returned.
+     */
+    public void shutdown() {
+        List<PooledConnection> toClose;
+        lock.lock();
+        try {
+            shutdown = true;
+            toClose = new ArrayList<>(idle);
+            totalConnections -= idle.size();
+            idle.clear();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        housekeeper.shutdownNow();
+        toClose.forEach(this::closeQuietly);
+    }
+
+    public PoolStatistics getStatistics() {
+        lock.lock();
+        try {
+            return new PoolStatistics(maxSize, totalConnections - idle.size(), idle.size(),
+                    waitingThreads, borrowCount, borrowTimeouts, totalWaitNanos, maxWaitNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ============ POOLED CONNECTION ============
+
+    private class PooledConnection {
+        private final Connection physical;
+        private final long createdAt = System.currentTimeMillis();
+        private long lastReturned = createdAt;
+        private long lastBorrowed = createdAt;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        boolean isExpired(long now) {
+            return (maxLifetimeMs > 0 && now - createdAt >= maxLifetimeMs)
+                    || (idleTimeoutMs > 0 && now - lastReturned >= idleTimeoutMs);
+        }
+
+        Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Handle(this));
+        }
+    }
+
+    /**
+     * Logical connection given to callers; close() returns the physical one
+     */
+    private class Handle implements InvocationHandler {
+        private PooledConnection pooled;
+
+        Handle(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    if (pooled != null) {
+                        PooledConnection toRelease = pooled;
+                        pooled = null;
+                        release(toRelease);
+                    }
+                    return null;
+                case "isClosed":
+                    return pooled == null || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection@" + Integer.toHexString(System.identityHashCode(proxy));
+                default:
+                    break;
+            }
+
+            if (pooled == null) {
+                throw new SQLException("Connection is closed");
+            }
+            try {
+                return method.invoke(pooled.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    // ============ STATISTICS ============
+
+    /**
+     * Immutable snapshot of pool usage
+     */
+    public static class PoolStatistics {
+        private final int maxSize;
+        private final int active;
+        private final int idle;
+        private final int waiting;
+        private final long borrowCount;
+        private final long borrowTimeouts;
+        private final long totalWaitNanos;
+        private final long maxWaitNanos;
+
+        public PoolStatistics(int maxSize, int active, int idle, int waiting, long borrowCount,
+                              long borrowTimeouts, long totalWaitNanos, long maxWaitNanos) {
+            this.maxSize = maxSize;
+            this.active = active;
+            this.idle = idle;
+            this.waiting = waiting;
+            this.borrowCount = borrowCount;
+            this.borrowTimeouts = borrowTimeouts;
+            this.totalWaitNanos = totalWaitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+        }
+
+        public int getMaxSize() { return maxSize; }
+        public int getActive() { return active; }
+        public int getIdle() { return idle; }
+        public int getWaiting() { return waiting; }
+        public long getBorrowCount() { return borrowCount; }
+        public long getBorrowTimeouts() { return borrowTimeouts; }
+
+        public double getAverageWaitMillis() {
+            return borrowCount == 0 ? 0 : totalWaitNanos / 1_000_000.0 / borrowCount;
+        }
+
+        public double getMaxWaitMillis() {
+            return maxWaitNanos / 1_000_000.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("active=%d idle=%d max=%d waiting=%d borrows=%d timeouts=%d avgWait=%.2fms maxWait=%.2fms",
+                    active, idle, maxSize, waiting, borrowCount, borrowTimeouts,
+                    getAverageWaitMillis(), getMaxWaitMillis());
+        }
+    }
+}
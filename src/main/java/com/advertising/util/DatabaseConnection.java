@@ -1,44 +1,103 @@
 package com.advertising.util;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Properties;
 
+/**
+ * Entry point for database access.
+ *
+ * Connections come from a bounded {@link ConnectionPool}. Callers must close
+ * the connection they receive (try-with-resources) to return it to the pool.
+ *
+ * Configuration is read from, in order:
+ * - the file named by the system property "db.config"
+ * - ./database.properties (next to the application)
+ * - database.properties on the classpath (defaults)
+ */
 public class DatabaseConnection {
-    private static final String URL = "jdbc:mysql://localhost:3306/decopeint";
-    private static final String USER = "root";
-    private static final String PASSWORD = "";  // Vide par défaut pour WAMP
-    private static Connection connection = null;
+    private static final String CONFIG_FILE = "database.properties";
+    private static ConnectionPool pool = null;
+    private static Properties configuration = null;
 
     public static Connection getConnection() throws SQLException {
-        if (connection == null || connection.isClosed()) {
+        return getPool().getConnection();
+    }
+
+    private static synchronized ConnectionPool getPool() throws SQLException {
+        if (pool == null) {
             try {
                 // Pour MySQL 8.0+
                 Class.forName("com.mysql.cj.jdbc.Driver");
-                connection = DriverManager.getConnection(URL, USER, PASSWORD);
-                System.out.println("✅ Database connected!");
             } catch (ClassNotFoundException e) {
                 throw new SQLException("MySQL Driver not found");
             }
+            pool = ConnectionPool.fromProperties(getConfiguration());
+            System.out.println("✅ Database pool ready!");
         }
-        return connection;
+        return pool;
     }
 
-    public static void closeConnection() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-                connection = null;
-                System.out.println("🔌 Connection closed");
+    /**
+     * Application setting from the same configuration files (e.g. cache TTLs)
+     */
+    public static String getSetting(String key, String defaultValue) {
+        String value = getConfiguration().getProperty(key);
+        return value != null && !value.isBlank() ? value.trim() : defaultValue;
+    }
+
+    private static synchronized Properties getConfiguration() {
+        if (configuration == null) {
+            configuration = loadConfiguration();
+        }
+        return configuration;
+    }
+
+    private static Properties loadConfiguration() {
+        Properties props = new Properties();
+
+        try (InputStream in = DatabaseConnection.class.getResourceAsStream("/" + CONFIG_FILE)) {
+            if (in != null) {
+                props.load(in);
             }
-        } catch (SQLException e) {
-            System.err.println("Error closing connection: " + e.getMessage());
+        } catch (IOException e) {
+            System.err.println("Error reading bundled " + CONFIG_FILE + ": " + e.getMessage());
+        }
+
+        String override = System.getProperty("db.config");
+        File external = override != null ? new File(override) : new File(CONFIG_FILE);
+        if (external.isFile()) {
+            try (InputStream in = new FileInputStream(external)) {
+                props.load(in);
+            } catch (IOException e) {
+                System.err.println("Error reading " + external.getPath() + ": " + e.getMessage());
+            }
+        }
+
+        return props;
+    }
+
+    /**
+     * Current pool usage, or null if no connection was requested yet
+     */
+    public static synchronized ConnectionPool.PoolStatistics getPoolStatistics() {
+        return pool != null ? pool.getStatistics() : null;
+    }
+
+    public static synchronized void closeConnection() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+            System.out.println("🔌 Connection pool closed");
         }
     }
 
     public static boolean testConnection() {
-        try {
-            Connection conn = getConnection();
+        try (Connection conn = getConnection()) {
             boolean isOpen = conn != null && !conn.isClosed();
             System.out.println("Connection test: " + (isOpen ? "OK" : "Closed"));
             return isOpen;
@@ -47,4 +106,4 @@ public class DatabaseConnection {
             return false;
         }
     }
-}
\ No newline at end of file
+}
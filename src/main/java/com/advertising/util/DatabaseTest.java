@@ -14,6 +14,7 @@ public class DatabaseTest {
                 System.out.println("   Database: advertising_db");
                 System.out.println("   Host: localhost:3306");
                 System.out.println("   User: root");
+                System.out.println("   Pool: " + DatabaseConnection.getPoolStatistics());
             } else {
                 System.out.println("❌ CONNECTION FAILED!");
                 System.out.println("\nTroubleshooting steps:");
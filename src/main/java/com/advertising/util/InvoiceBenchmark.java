@@ -0,0 +1,71 @@
+package com.advertising.util;
+
+import com.advertising.controller.ServiceController.Payment;
+import com.advertising.controller.ServiceController.Service;
+import com.advertising.service.PdfReportGenerator;
+import com.advertising.service.ServiceManager;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.sql.Timestamp;
+
+/**
+ * Per-invoice CPU time and output size of PdfReportGenerator, without a
+ * database or the disk: invoices are rendered into a byte counter.
+ *
+ * Usage: java com.advertising.util.InvoiceBenchmark [invoices]
+ * The first half warms the JIT up; the second half is measured. Half the
+ * clients have an Arabic name, so the embedded Unicode font is included.
+ */
+public class InvoiceBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        PdfReportGenerator generator = new PdfReportGenerator();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        long cpuStart = 0;
+        long bytesStart = 0;
+        ByteCounter out = new ByteCounter();
+        for (int i = 0; i < count; i++) {
+            if (i == count / 2) {
+                cpuStart = threads.getCurrentThreadCpuTime();
+                bytesStart = out.bytes;
+            }
+            boolean arabic = i % 2 == 1;
+            Service service = new Service(i + 1, arabic ? "شركة النور" : "Imprimerie du Centre",
+                    "Panneau publicitaire", "Panneau 4x3 recto-verso, pose comprise",
+                    120_000, 70_000, 50_000, "PARTIELLEMENT_PAYE", "EN_COURS",
+                    new Timestamp(System.currentTimeMillis()));
+            ObservableList<Payment> payments = FXCollections.observableArrayList(
+                    new Payment(new Timestamp(System.currentTimeMillis()), 40_000, "Chèque"),
+                    new Payment(new Timestamp(System.currentTimeMillis() - 86_400_000L), 30_000, "Espèces"));
+            ServiceManager.ClientDetails client = new ServiceManager.ClientDetails(service.getClient(),
+                    "0550 00 00 00", "contact@example.com", arabic ? "شارع الاستقلال، الجزائر" : "12 rue Didouche Mourad, Alger");
+            generator.generateServiceInvoice(service, payments, client, out);
+        }
+
+        int measured = count - count / 2;
+        double cpuMs = (threads.getCurrentThreadCpuTime() - cpuStart) / 1e6 / measured;
+        long size = (out.bytes - bytesStart) / measured;
+        System.out.printf("%d invoices measured: %.2f ms CPU and %d bytes per invoice%n", measured, cpuMs, size);
+    }
+
+    private static class ByteCounter extends OutputStream {
+        long bytes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.advertising.util;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Cancels the JDBC statements of a query that became stale
+ *
+ * A background load registers each statement it executes; another thread
+ * (typically the FX thread, when a newer filter state arrives) calls
+ * {@link #cancel()}, which aborts them on the server (Statement.cancel
+ * sends KILL QUERY with Connector/J). A statement registered after the
+ * cancellation is refused right away. Callers unregister a statement
+ * before closing it and releasing its connection.
+ */
+public class StatementCanceller {
+
+    private final Set<Statement> running = new HashSet<>();
+    private boolean cancelled = false;
+
+    /**
+     * @throws SQLException if {@link #cancel()} was already called
+     */
+    public synchronized void register(Statement statement) throws SQLException {
+        if (cancelled) {
+            throw new SQLException("Query cancelled");
+        }
+        running.add(statement);
+    }
+
+    public synchronized void unregister(Statement statement) {
+        running.remove(statement);
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Abort the registered statements. Runs under the same lock as
+     * {@link #unregister}, which callers invoke before the statement's
+     * connection goes back to the pool: a statement is only cancelled while
+     * still registered, so KILL QUERY never reaches a pooled connection
+     * that has moved on to another caller's query.
+     */
+    public synchronized void cancel() {
+        if (cancelled) {
+            return;
+        }
+        cancelled = true;
+        for (Statement statement : running) {
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                // Already finished or closed: nothing to cancel
+            }
+        }
+    }
+}